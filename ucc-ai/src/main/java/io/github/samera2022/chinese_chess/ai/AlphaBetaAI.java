@@ -0,0 +1,576 @@
+package io.github.samera2022.chinese_chess.ai;
+
+import io.github.samera2022.chinese_chess.common.GameStatus;
+import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.spi.AIStrategy;
+import io.github.samera2022.chinese_chess.common.spi.AIStrategyConfig;
+import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
+import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于 Alpha-Beta 的 AI 策略，不依赖神经网络。
+ *
+ * <p>迭代加深的主要变例搜索（PVS），自第 {@value #ASPIRATION_MIN_DEPTH} 层起以上一层的分数为中心使用渴望窗口；
+ * 置换表以 {@link SimulationContext#getZobristKey()} 为键，着法排序依次为置换表着法、吃子（MVV-LVA）、杀手着法与历史表；
+ * 非 PV 节点在未被将时尝试空着裁剪，叶节点延伸为只走吃子的静态搜索，被将时延伸一层。</p>
+ *
+ * <p>局面分取自 {@link SimulationContext#evaluate()}（红方视角），按行棋方换算为负极大值形式。
+ * 引擎的合法着法不排除送将，因此吃掉对方将帅即记为胜局，无着可走记为负局；重复局面按
+ * {@link SimulationContext#getRepetitionStatus()} 的裁决计分。搜索在调用方上下文的副本上进行，
+ * 置换表、杀手与历史表等缓冲区在实例内复用，同一实例不可被多个线程同时调用。</p>
+ *
+ * <h3>配置参数</h3>
+ * <ul>
+ *   <li><b>maxDepth</b>（int，默认 6）：调用时既未指定深度也未限时的搜索深度。</li>
+ *   <li><b>hashBits</b>（int，默认 20）：置换表容量为 2^hashBits 项（每项 18 字节）。</li>
+ *   <li><b>nullMove</b>（boolean，默认 true）：是否启用空着裁剪。</li>
+ *   <li><b>aspirationWindow</b>（int，默认 50）：渴望窗口的初始半宽。</li>
+ * </ul>
+ *
+ * @see TranspositionTable
+ * @see AIStrategy
+ */
+public class AlphaBetaAI implements AIStrategy {
+
+    /** 搜索的最大层数（含延伸与静态搜索） */
+    private static final int MAX_PLY = 64;
+    /** 限时搜索的迭代深度上限 */
+    private static final int MAX_DEPTH = 48;
+    private static final int MATE = 1 << 20;
+    private static final int INF = MATE + 1;
+    /** 绝对值不小于该值的分数表示若干步内分出胜负 */
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    /** 每搜索这么多节点检查一次时间 */
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private static final int CAPTURE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    private static final int HISTORY_LIMIT = 1 << 28;
+
+    private int defaultDepth = 6;
+    private int hashBits = 20;
+    private boolean nullMoveEnabled = true;
+    private int aspirationWindow = 50;
+
+    /** 当前配置 */
+    private AIStrategyConfig currentConfig;
+
+    private TranspositionTable table;
+    private final int[][] moveStack = new int[MAX_PLY][];
+    private final int[][] scoreStack = new int[MAX_PLY][];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private int[] history = new int[0];
+    private int cols;
+    private int squares;
+
+    /** 本次搜索的状态 */
+    private SimulationContext ctx;
+    private long deadline;
+    private boolean timed;
+    private boolean stopped;
+    private long nodes;
+    private int rootBestMove;
+    private int rootDepth;
+    private int completedDepth;
+
+    /**
+     * 构造 AlphaBetaAI，使用默认配置初始化；置换表在首次搜索时分配。
+     */
+    public AlphaBetaAI() {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("maxDepth", 6);
+        defaults.put("hashBits", 20);
+        defaults.put("nullMove", true);
+        defaults.put("aspirationWindow", 50);
+        applyConfig(new AIStrategyConfig(defaults));
+    }
+
+    /**
+     * 返回 AI 策略名称。
+     *
+     * @return "AlphaBeta-PVS"
+     */
+    @Override
+    public String getName() {
+        return "AlphaBeta-PVS";
+    }
+
+    /**
+     * 迭代加深搜索当前局面的最佳着法。
+     *
+     * <p>每完成一层即记录该层的最佳着法；超时时返回最后完成一层的结果（本层已完整搜完且更优的根着法也会采用）。
+     * 限时搜索中，已用时间超过限额一半时不再开始下一层。</p>
+     *
+     * @param ctx         当前局面上下文，搜索结束后保持不变
+     * @param maxDepth    最大搜索深度，≤ 0 时限时搜索不设深度上限、不限时搜索使用配置的 maxDepth
+     * @param timeLimitMs 时间限制（毫秒），≤ 0 表示无时间限制
+     * @return 最佳着法；如果当前无合法走法则返回 null
+     */
+    @Override
+    public Move findBestMove(SimulationContext ctx, int maxDepth, long timeLimitMs) {
+        long start = System.nanoTime();
+        SimulationContext sim = ctx.fork();
+        int[] rootMoves = moves(0);
+        int n = sim.generateLegalMoves(rootMoves);
+        if (n == 0) {
+            return null;
+        }
+        int best = rootMoves[0];
+        if (n > 1) {
+            int depthLimit = maxDepth > 0 ? Math.min(maxDepth, MAX_DEPTH) : timeLimitMs > 0 ? MAX_DEPTH : defaultDepth;
+            best = iterativeDeepening(sim, depthLimit, start, timeLimitMs, best);
+        }
+        return toMove(ctx.getBoard(), best);
+    }
+
+    /** 最近一次搜索完成的深度 */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /** 最近一次搜索访问的节点数（含静态搜索） */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    private int iterativeDeepening(SimulationContext sim, int depthLimit, long start, long timeLimitMs, int fallback) {
+        prepare(sim, start, timeLimitMs);
+        int best = fallback;
+        int score = 0;
+        try {
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                int delta = aspirationWindow;
+                int alpha = -INF, beta = INF;
+                if (depth >= ASPIRATION_MIN_DEPTH && delta > 0 && Math.abs(score) < MATE_BOUND) {
+                    alpha = Math.max(score - delta, -INF);
+                    beta = Math.min(score + delta, INF);
+                }
+                int iterationBest = PackedMove.NONE;
+                while (true) {
+                    rootBestMove = PackedMove.NONE;
+                    rootDepth = depth;
+                    int result = search(depth, 0, alpha, beta, true);
+                    if (rootBestMove != PackedMove.NONE) {
+                        iterationBest = rootBestMove;
+                    }
+                    if (stopped) {
+                        break;
+                    }
+                    if (result <= alpha && alpha > -INF) {
+                        alpha = Math.max(result - delta, -INF);
+                    } else if (result >= beta && beta < INF) {
+                        beta = Math.min(result + delta, INF);
+                    } else {
+                        score = result;
+                        break;
+                    }
+                    delta *= 2;
+                }
+                if (iterationBest != PackedMove.NONE) {
+                    best = iterationBest;
+                }
+                if (stopped) {
+                    break;
+                }
+                completedDepth = depth;
+                if (Math.abs(score) >= MATE_BOUND
+                        || timed && (System.nanoTime() - start) * 2 > timeLimitMs * 1_000_000L) {
+                    break;
+                }
+            }
+        } finally {
+            this.ctx = null;
+        }
+        return best;
+    }
+
+    private void prepare(SimulationContext sim, long start, long timeLimitMs) {
+        ReadonlyBoard board = sim.getBoard();
+        int sq = board.getRows() * board.getCols();
+        if (sq != squares) {
+            squares = sq;
+            history = new int[sq * sq];
+        } else {
+            Arrays.fill(history, 0);
+        }
+        cols = board.getCols();
+        for (int[] k : killers) {
+            k[0] = k[1] = PackedMove.NONE;
+        }
+        if (table == null) {
+            table = new TranspositionTable(hashBits);
+        } else {
+            // 规则可能在两次搜索之间变化，而局面键不含规则，旧表项不再可信
+            table.clear();
+        }
+        this.ctx = sim;
+        this.timed = timeLimitMs > 0;
+        this.deadline = start + timeLimitMs * 1_000_000L;
+        this.stopped = false;
+        this.nodes = 0;
+        this.completedDepth = 0;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta, boolean nullAllowed) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && timed && System.nanoTime() - deadline >= 0) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        boolean pvNode = beta - alpha > 1;
+        if (ply > 0) {
+            GameStatus repetition = ctx.getRepetitionStatus();
+            if (repetition != GameStatus.RUNNING) {
+                return repetitionScore(repetition, ply);
+            }
+            // 更短的杀棋已在别处找到时无需继续
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        boolean inCheck = ctx.isInCheck();
+        // 将军延伸限制在根深度的两倍以内，否则连续将军（象棋中很常见）会使搜索一路延伸到 MAX_PLY
+        if (inCheck && ply < 2 * rootDepth) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        long key = ctx.getZobristKey();
+        int ttMove = PackedMove.NONE;
+        int slot = table.probe(key);
+        if (slot >= 0) {
+            ttMove = table.move(slot);
+            if (!pvNode && ply > 0 && table.depth(slot) >= depth) {
+                int ttScore = fromTable(table.score(slot), ply);
+                byte bound = table.bound(slot);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && ttScore >= beta
+                        || bound == TranspositionTable.UPPER && ttScore <= alpha) {
+                    return ttScore;
+                }
+            }
+        }
+
+        if (nullMoveEnabled && nullAllowed && !pvNode && !inCheck && depth >= 3
+                && sideEval() >= beta && ctx.simulateNullMove()) {
+            int reduction = depth > 6 ? 3 : 2;
+            int score = -search(depth - 1 - reduction, ply + 1, -beta, -beta + 1, false);
+            ctx.simulateUndo();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        int[] moves = moves(ply);
+        int[] scores = scores(ply);
+        int n = ctx.generateLegalMoves(moves);
+        if (n == 0) {
+            return -MATE + ply;
+        }
+        orderMoves(moves, scores, n, ply, ttMove);
+
+        int originalAlpha = alpha;
+        int best = -INF;
+        int bestMove = PackedMove.NONE;
+        int searched = 0;
+        for (int i = 0; i < n; i++) {
+            int move = pickNext(moves, scores, i, n);
+            if (!ctx.simulateMove(move)) {
+                continue;
+            }
+            int score;
+            if (kingCaptured()) {
+                score = MATE - ply - 1;
+            } else if (searched == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+            ctx.simulateUndo();
+            searched++;
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                    }
+                    if (score >= beta) {
+                        if (!PackedMove.isCapture(move)) {
+                            recordQuietCutoff(move, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (searched == 0) {
+            return -MATE + ply;
+        }
+        byte bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, depth, bound, toTable(best, ply), bestMove);
+        return best;
+    }
+
+    /** 只走吃子的静态搜索，行棋方可选择不吃（以当前局面分截断） */
+    private int quiesce(int ply, int alpha, int beta) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && timed && System.nanoTime() - deadline >= 0) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        int standPat = sideEval();
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        int[] moves = moves(ply);
+        int[] scores = scores(ply);
+        int n = ctx.generateLegalMoves(moves);
+        if (n == 0) {
+            return -MATE + ply;
+        }
+        int captures = 0;
+        ReadonlyBoard board = ctx.getBoard();
+        for (int i = 0; i < n; i++) {
+            int move = moves[i];
+            if (PackedMove.isCapture(move)) {
+                moves[captures] = move;
+                scores[captures] = captureScore(board, move);
+                captures++;
+            }
+        }
+        int best = standPat;
+        for (int i = 0; i < captures; i++) {
+            int move = pickNext(moves, scores, i, captures);
+            if (!ctx.simulateMove(move)) {
+                continue;
+            }
+            int score = kingCaptured() ? MATE - ply - 1 : -quiesce(ply + 1, -beta, -alpha);
+            ctx.simulateUndo();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** 为前 n 个着法打分：置换表着法最先，其次吃子、杀手着法，其余按历史表 */
+    private void orderMoves(int[] moves, int[] scores, int n, int ply, int ttMove) {
+        ReadonlyBoard board = ctx.getBoard();
+        int ttBody = ttMove == PackedMove.NONE ? PackedMove.NONE : PackedMove.withoutFlags(ttMove);
+        int killer0 = killers[ply][0], killer1 = killers[ply][1];
+        for (int i = 0; i < n; i++) {
+            int move = moves[i];
+            int body = PackedMove.withoutFlags(move);
+            int score;
+            if (body == ttBody) {
+                score = Integer.MAX_VALUE;
+            } else if (PackedMove.isCapture(move)) {
+                score = captureScore(board, move);
+            } else if (body == killer0) {
+                score = KILLER_SCORE + 1;
+            } else if (body == killer1) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[historyIndex(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /** 选出 [i, n) 中分数最高的着法换到 i 处（惰性选择排序，截断时不必排完） */
+    private static int pickNext(int[] moves, int[] scores, int i, int n) {
+        int bestIdx = i;
+        for (int j = i + 1; j < n; j++) {
+            if (scores[j] > scores[bestIdx]) {
+                bestIdx = j;
+            }
+        }
+        if (bestIdx != i) {
+            int m = moves[i];
+            moves[i] = moves[bestIdx];
+            moves[bestIdx] = m;
+            int s = scores[i];
+            scores[i] = scores[bestIdx];
+            scores[bestIdx] = s;
+        }
+        return moves[i];
+    }
+
+    /** MVV-LVA：先按被吃子价值，再优先用价值低的棋子去吃 */
+    private static int captureScore(ReadonlyBoard board, int move) {
+        Piece victim = board.getPiece(PackedMove.toRow(move), PackedMove.toCol(move));
+        return CAPTURE_SCORE + pieceValue(victim) * 64 - pieceValue(movingPiece(board, move)) / 64;
+    }
+
+    private void recordQuietCutoff(int move, int ply, int depth) {
+        int body = PackedMove.withoutFlags(move);
+        int[] k = killers[ply];
+        if (k[0] != body) {
+            k[1] = k[0];
+            k[0] = body;
+        }
+        int idx = historyIndex(move);
+        history[idx] += depth * depth;
+        if (history[idx] >= HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    private int historyIndex(int move) {
+        int from = PackedMove.fromRow(move) * cols + PackedMove.fromCol(move);
+        int to = PackedMove.toRow(move) * cols + PackedMove.toCol(move);
+        return from * squares + to;
+    }
+
+    /** 刚走完的一步吃掉了对方（当前行棋方）的将帅 */
+    private boolean kingCaptured() {
+        ReadonlyBoard board = ctx.getBoard();
+        return (ctx.isRedTurn() ? board.getRedKing() : board.getBlackKing()) == null;
+    }
+
+    /** 行棋方视角的局面分 */
+    private int sideEval() {
+        int eval = ctx.evaluate();
+        return ctx.isRedTurn() ? eval : -eval;
+    }
+
+    /** 重复局面裁决换算为行棋方视角：判和为 0，长将方判负 */
+    private int repetitionScore(GameStatus status, int ply) {
+        boolean red = ctx.isRedTurn();
+        switch (status) {
+            case RED_CHECKMATE: return red ? -MATE + ply : MATE - ply;
+            case BLACK_CHECKMATE: return red ? MATE - ply : -MATE + ply;
+            default: return 0;
+        }
+    }
+
+    /** 杀棋分在表中按距当前节点的步数存放，取出时换回距根节点的步数 */
+    private static int toTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private int[] moves(int ply) {
+        int[] buffer = moveStack[ply];
+        if (buffer == null) {
+            buffer = moveStack[ply] = new int[PackedMove.BUFFER_SIZE];
+        }
+        return buffer;
+    }
+
+    private int[] scores(int ply) {
+        int[] buffer = scoreStack[ply];
+        if (buffer == null) {
+            buffer = scoreStack[ply] = new int[PackedMove.BUFFER_SIZE];
+        }
+        return buffer;
+    }
+
+    private static Piece movingPiece(ReadonlyBoard board, int move) {
+        int fr = PackedMove.fromRow(move), fc = PackedMove.fromCol(move);
+        int si = PackedMove.selectedStackIndex(move);
+        if (si >= 0 && si < board.getStackSize(fr, fc)) {
+            return board.getStack(fr, fc).get(si);
+        }
+        return board.getPiece(fr, fc);
+    }
+
+    private static Move toMove(ReadonlyBoard board, int packed) {
+        int fr = PackedMove.fromRow(packed), fc = PackedMove.fromCol(packed);
+        int tr = PackedMove.toRow(packed), tc = PackedMove.toCol(packed);
+        Move move = new Move(fr, fc, tr, tc, movingPiece(board, packed),
+                PackedMove.isCapture(packed) ? board.getPiece(tr, tc) : null);
+        move.setStacking(PackedMove.isStacking(packed));
+        if (PackedMove.selectedStackIndex(packed) >= 0) {
+            move.setSelectedStackIndex(PackedMove.selectedStackIndex(packed));
+        }
+        return move;
+    }
+
+    private static int pieceValue(Piece piece) {
+        if (piece == null) return 0;
+        switch (piece.getType()) {
+            case RED_KING:    case BLACK_KING:    return 10000;
+            case RED_CHARIOT: case BLACK_CHARIOT: return 900;
+            case RED_CANNON:  case BLACK_CANNON:  return 450;
+            case RED_HORSE:   case BLACK_HORSE:   return 400;
+            case RED_ELEPHANT:case BLACK_ELEPHANT:return 200;
+            case RED_ADVISOR: case BLACK_ADVISOR: return 200;
+            case RED_SOLDIER: case BLACK_SOLDIER: return 100;
+            default: return 0;
+        }
+    }
+
+    /**
+     * 获取当前 AI 策略配置。
+     *
+     * @return 当前配置对象
+     */
+    @Override
+    public AIStrategyConfig getConfig() {
+        return currentConfig;
+    }
+
+    /**
+     * 应用新的 AI 策略配置；置换表容量变化时于下次搜索重新分配。
+     *
+     * @param config 新的配置对象
+     */
+    @Override
+    public void applyConfig(AIStrategyConfig config) {
+        int bits = config.getInt("hashBits", 20);
+        if (bits < 1 || bits > 28) {
+            throw new IllegalArgumentException("hashBits out of range: " + bits);
+        }
+        this.currentConfig = config;
+        this.defaultDepth = Math.max(1, Math.min(config.getInt("maxDepth", 6), MAX_DEPTH));
+        this.nullMoveEnabled = config.getBoolean("nullMove", true);
+        this.aspirationWindow = Math.max(0, config.getInt("aspirationWindow", 50));
+        if (bits != hashBits) {
+            hashBits = bits;
+            table = null;
+        }
+    }
+}
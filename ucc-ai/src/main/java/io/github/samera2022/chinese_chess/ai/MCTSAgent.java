@@ -1,15 +1,24 @@
 package io.github.samera2022.chinese_chess.ai;
 
+import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
 import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 /**
@@ -17,6 +26,23 @@ import java.util.function.BiFunction;
  *
  * <p>当提供了神经网络推理回调（{@link #setInferenceFunction}）时，叶节点评估使用神经网络
  * 预测的 value 替代启发式 Rollout；否则回退到纯启发式评估。</p>
+ *
+ * <p>搜索过程使用 {@link PackedMove} 编码的着法与按线程复用的缓冲区，模拟期间不再产生着法对象；
+ * 同一实例不可被多个线程同时调用。</p>
+ *
+ * <p>{@link #setThreadCount(int)} 大于 1 时为树并行搜索：调用线程与 N - 1 个后台线程共享同一棵树，
+ * 各自在自己的 {@link SimulationContext} 副本上模拟。下行经过的节点先计一次虚拟损失，使其他线程倾向于选择别的分支，
+ * 反向传播时撤回；访问次数与价值以原子操作更新，扩展节点时持有该节点的分段锁。单线程时与原串行搜索一致。</p>
+ *
+ * <p>搜索树存放在 {@link MCTSNodePool} 的预分配数组中，节点以下标表示，每次搜索前整体重置，模拟期间不分配节点对象；
+ * 节点首次扩展时按走法排序一次性写入全部候选着法，之后每次扩展直接激活下一个。</p>
+ *
+ * <p>{@link #setLeafBatchSize(int)} 大于 1 且设置了推理回调时，每个线程一轮选出多个叶节点后一起提交推理，
+ * 同一线程即可同时有多个请求在途，供批量推理引擎凑满批次。</p>
+ *
+ * <p>每次搜索结束后保留所选着法的子树：下一次搜索的局面若是所选着法之后（同一实例替双方走子），
+ * 或再加上对手某个应着之后的局面（按 Zobrist 键匹配），就把对应子树复制到备用节点池的根部继续搜索，其已有访问次数计入模拟次数预算；
+ * 复用前移除在当前局面上已不合法的子节点。规则、对局或推理回调变化时调用 {@link #resetTree()}。</p>
  */
 public class MCTSAgent {
 
@@ -24,166 +50,115 @@ public class MCTSAgent {
     private static final double EXPLORATION_CONSTANT = 1.414;
     private static final int MAX_ROLLOUT_STEPS = 20;
 
-    private final Random random = new Random();
+    /** 每个下行经过该节点、尚未回传的模拟暂按一次价值为 -VIRTUAL_LOSS 的访问计入 */
+    private static final double VIRTUAL_LOSS = 1.0;
+    /** 后台搜索线程空闲多久后退出 */
+    private static final long HELPER_KEEP_ALIVE_SECONDS = 60;
+    /** 按模拟次数预估节点池容量：每次模拟至多扩展一个节点，首次扩展时占用其全部候选着法的槽位（实测开局约 6 个/次） */
+    private static final int SLOTS_PER_SIMULATION = 16;
+    private static final int MIN_POOL_CAPACITY = 1 << 12;
+    private static final int MAX_POOL_CAPACITY = 1 << 21;
+
     private volatile float[] lastPolicy;
 
+    /** 调用线程使用的缓冲区 */
+    private final SearchWorker mainWorker = new SearchWorker();
+    /** 后台线程的缓冲区与线程池，按 threadCount 懒创建 */
+    private SearchWorker[] helperWorkers = new SearchWorker[0];
+    private ExecutorService helperPool;
+    private int threadCount = 1;
+    /** 每个线程一轮收集的叶节点数，仅在设置了推理回调时生效 */
+    private int leafBatchSize = 1;
+    /** 上次搜索留下的候选根节点及其局面的 Zobrist 键（所选子节点与它的各个子节点），一一对应 */
+    private long[] reuseKeys = new long[0];
+    private int[] reuseNodes = new int[0];
+    /** 当前搜索树；复用子树时复制到 sparePool 后两者交换 */
+    private MCTSNodePool tree = new MCTSNodePool(MIN_POOL_CAPACITY);
+    private MCTSNodePool sparePool;
+
     /** 神经网络推理回调：输入 (SimulationContext, float[]规则向量) → 输出 float[policy+value] */
     private BiFunction<SimulationContext, float[], CompletableFuture<float[]>> inferenceFunction;
 
     public void setInferenceFunction(BiFunction<SimulationContext, float[], CompletableFuture<float[]>> fn) {
         this.inferenceFunction = fn;
+        resetTree();
     }
 
-    static class MCTSNode {
-        Move move;
-        MCTSNode parent;
-        List<MCTSNode> children;
-        int visitCount;
-        double totalValue;
-        boolean expanded;
-        /** 缓存神经网络的 policy 先验概率（仅在使用 NN 评估时有效） */
-        double priorPolicy;
+    /** 丢弃上次搜索保留的子树，下一次搜索从新的根节点开始 */
+    public void resetTree() {
+        reuseKeys = new long[0];
+        reuseNodes = new int[0];
+    }
 
-        MCTSNode(Move move, MCTSNode parent) {
-            this.move = move;
-            this.parent = parent;
-            this.children = new ArrayList<>();
-            this.visitCount = 0;
-            this.totalValue = 0.0;
-            this.expanded = false;
-            this.priorPolicy = 0.0;
+    /**
+     * 设置搜索线程数（含调用线程），下一次搜索时生效；为 1 时在调用线程上串行搜索
+     */
+    public void setThreadCount(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        if (threads != threadCount) {
+            shutdown();
+            threadCount = threads;
         }
+    }
 
-        /** 带先验概率的构造函数，用于 PUCT 搜索 */
-        MCTSNode(Move move, MCTSNode parent, double prior) {
-            this(move, parent);
-            this.priorPolicy = prior;
-        }
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * 设置叶节点批大小：每个搜索线程一轮选出至多 k 个叶节点（以虚拟损失分散到不同分支），
+     * 一起提交给推理回调，结果全部返回后再扩展与反向传播。为 1 时逐个叶节点同步推理；无推理回调时不生效
+     */
+    public void setLeafBatchSize(int k) {
+        if (k < 1) throw new IllegalArgumentException("leaf batch size must be >= 1: " + k);
+        leafBatchSize = k;
+    }
 
-        double averageValue() {
-            return visitCount > 0 ? totalValue / visitCount : 0.0;
+    public int getLeafBatchSize() {
+        return leafBatchSize;
+    }
+
+    /** 释放后台搜索线程；之后再次搜索会按需重新创建 */
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
         }
+        helperWorkers = new SearchWorker[0];
     }
 
     public Move findBestMove(SimulationContext ctx, int numSimulations, long timeLimitMs) {
-        List<Move> rootLegalMoves = ctx.generateLegalMoves();
-        if (rootLegalMoves.isEmpty()) {
+        if (ctx.generateLegalMoves(mainWorker.moveBuffer) == 0) {
             return null;
         }
 
-        MCTSNode root = new MCTSNode(null, null);
+        prepareTree(ctx, numSimulations);
+        int root = MCTSNodePool.ROOT;
         long startTime = System.currentTimeMillis();
+        // 复用的访问次数计入预算
+        AtomicInteger started = new AtomicInteger(tree.visits(root));
 
-        for (int sim = 0; sim < numSimulations; sim++) {
-            if (timeLimitMs > 0 && System.currentTimeMillis() - startTime >= timeLimitMs) {
-                break;
-            }
-
-            // 每次模拟创建新的 fork，避免 simulateUndo 累积错误导致棋盘状态不一致
-            SimulationContext forkCtx = ctx.fork();
-            int totalMoves = 0;
-            MCTSNode node = root;
-
-            // ── 1. 选择 (Selection) ──
-            while (true) {
-                List<Move> moves = forkCtx.generateLegalMoves();
-                if (moves.isEmpty()) {
-                    break;
-                }
-                if (node.expanded) {
-                    MCTSNode bestChild = selectBestChild(node);
-                    if (bestChild == null) {
-                        break;
-                    }
-                    Move childMove = bestChild.move;
-                    // 子节点的走法是之前某次模拟中生成的，在新的 forkCtx 上可能不合法
-                    // 跳过不合法走法
-                    if (!forkCtx.isValidMove(
-                            childMove.getFromRow(), childMove.getFromCol(),
-                            childMove.getToRow(), childMove.getToCol())) {
-                        bestChild.visitCount = Integer.MAX_VALUE;
-                        continue;
-                    }
-                    forkCtx.simulateMove(
-                            childMove.getFromRow(), childMove.getFromCol(),
-                            childMove.getToRow(), childMove.getToCol());
-                    totalMoves++;
-                    node = bestChild;
-                } else {
-                    break;
-                }
-            }
-
-            // ── 3. 评估 (Evaluation) ──
-            // 先评估叶节点，获取神经网络输出的 value 和 policy
-            float[] nnResult = null;
-            double value;
-            if (inferenceFunction != null) {
-                // 使用神经网络评估（异步，同步等待结果）
-                // 直接传递 forkCtx，由调用方 lambda 从 SimulationContext 提取 BoardState 并提交推理
-                try {
-                    nnResult = inferenceFunction.apply(forkCtx, null).get();
-                    // nnResult[0] = value, nnResult[1...] = policy
-                    value = nnResult.length > 0 ? nnResult[0] : 0.0;
-                } catch (Exception e) {
-                    value = heuristicRollout(forkCtx, ROLLOUT_DEPTH);
-                }
-            } else {
-                // 无神经网络 → 回退到纯启发式评估
-                value = heuristicRollout(forkCtx, ROLLOUT_DEPTH);
-            }
-
-            // ── 2. 扩展 (Expansion) ──
-            List<Move> parentMoves = forkCtx.generateLegalMoves();
-            if (!parentMoves.isEmpty() && !node.expanded) {
-                List<Move> sorted = sortMovesByHeuristic(parentMoves, forkCtx);
-                Move unexpanded = pickUnexpandedMove(node, sorted);
-                if (unexpanded != null) {
-                    forkCtx.simulateMove(
-                            unexpanded.getFromRow(), unexpanded.getFromCol(),
-                            unexpanded.getToRow(), unexpanded.getToCol());
-                    totalMoves++;
-
-                    // 从 nnResult 中获取当前着法的 policy 先验概率
-                    double prior = 0.0;
-                    if (nnResult != null) {
-                        int moveIdx = indexOfMove(parentMoves, unexpanded);
-                        if (moveIdx >= 0 && 1 + moveIdx < nnResult.length) {
-                            prior = nnResult[1 + moveIdx];
-                        }
-                    }
-                    MCTSNode child = new MCTSNode(unexpanded, node, prior);
-                    node.children.add(child);
-                    node.expanded = (node.children.size() >= parentMoves.size());
-                    node = child;
-                }
-            }
-
-            // ── 4. 反向传播 (Backpropagation) ──
-            MCTSNode bpNode = node;
-            while (bpNode != null) {
-                bpNode.visitCount++;
-                bpNode.totalValue += value;
-                value = -value;
-                bpNode = bpNode.parent;
-            }
-
-            for (int i = 0; i < totalMoves; i++) {
-                forkCtx.simulateUndo();
-            }
+        if (threadCount <= 1) {
+            mainWorker.run(ctx, started, numSimulations, startTime, timeLimitMs);
+        } else {
+            runParallel(ctx, started, numSimulations, startTime, timeLimitMs);
         }
 
         // ── 根选择 ──
-        MCTSNode bestChild = null;
+        int bestChild = MCTSNodePool.NULL;
         double bestScore = Double.NEGATIVE_INFINITY;
+        int first = tree.firstChild(root);
+        int end = first + tree.childCount(root);
 
-        for (MCTSNode child : root.children) {
-            double winRate = child.averageValue();
-            double visitBonus = Math.log10(child.visitCount + 1);
-            double maxLogVisits = 0;
-            for (MCTSNode c2 : root.children) {
-                maxLogVisits = Math.max(maxLogVisits, Math.log10(c2.visitCount + 1));
-            }
+        double maxLogVisits = 0;
+        for (int c2 = first; c2 < end; c2++) {
+            if (tree.move(c2) == PackedMove.NONE) continue;
+            maxLogVisits = Math.max(maxLogVisits, Math.log10(tree.visits(c2) + 1));
+        }
+        for (int child = first; child < end; child++) {
+            if (tree.move(child) == PackedMove.NONE) continue;
+            double winRate = tree.averageValue(child);
+            double visitBonus = Math.log10(tree.visits(child) + 1);
             double normalizedBonus = maxLogVisits > 0 ? visitBonus / maxLogVisits : 0;
             double score = winRate + 0.1 * normalizedBonus;
             if (score > bestScore) {
@@ -192,15 +167,17 @@ public class MCTSAgent {
             }
         }
 
-        lastPolicy = buildPolicyFromRoot(root);
+        lastPolicy = buildPolicyFromRoot(tree);
 
         // 根选择后验证：确保返回的走法在原始 ctx 上合法
-        if (bestChild != null) {
-            int fr = bestChild.move.getFromRow();
-            int fc = bestChild.move.getFromCol();
-            int tr = bestChild.move.getToRow();
-            int tc = bestChild.move.getToCol();
+        if (bestChild != MCTSNodePool.NULL) {
+            int bestMove = tree.move(bestChild);
+            int fr = PackedMove.fromRow(bestMove);
+            int fc = PackedMove.fromCol(bestMove);
+            int tr = PackedMove.toRow(bestMove);
+            int tc = PackedMove.toCol(bestMove);
             if (!ctx.isValidMove(fr, fc, tr, tc)) {
+                resetTree();
                 // MCTS 树中存储的走法在新棋盘上不合法，从当前合法走法中选最佳
                 List<Move> fallback = ctx.generateLegalMoves();
                 if (!fallback.isEmpty()) {
@@ -208,27 +185,169 @@ public class MCTSAgent {
                 }
                 return null;
             }
-            return bestChild.move;
+            ReadonlyBoard board = ctx.getBoard();
+            Move result = new Move(fr, fc, tr, tc, board.getPiece(fr, fc), board.getPiece(tr, tc));
+            if (Thread.currentThread().isInterrupted()) {
+                // 被中断时后台线程可能仍在改动这棵树，换用新的节点池，不再复用
+                resetTree();
+                tree = new MCTSNodePool(tree.capacity());
+                sparePool = null;
+            } else {
+                keepSubtree(ctx, bestChild);
+            }
+            return result;
         }
+        resetTree();
         return null;
     }
 
+    /**
+     * 准备本次搜索的树：上次保留的候选节点中有与 ctx 局面相同的一个时，移除其在当前局面上已不合法的子节点，
+     * 再把它的子树复制到备用节点池的根部并交换两个池；否则清空节点池，只留一个新的根节点
+     */
+    private void prepareTree(SimulationContext ctx, int numSimulations) {
+        long key = ctx.getZobristKey();
+        int reused = MCTSNodePool.NULL;
+        for (int i = 0; i < reuseKeys.length; i++) {
+            if (reuseKeys[i] == key) {
+                reused = reuseNodes[i];
+                break;
+            }
+        }
+        resetTree();
+        int needed = (int) Math.min(MAX_POOL_CAPACITY,
+                Math.max(MIN_POOL_CAPACITY, (long) numSimulations * SLOTS_PER_SIMULATION));
+        if (reused != MCTSNodePool.NULL && pruneStaleChildren(ctx, reused)) {
+            MCTSNodePool target = sparePool != null ? sparePool : new MCTSNodePool(MIN_POOL_CAPACITY);
+            target.reset();
+            target.ensureCapacity((int) Math.min(MAX_POOL_CAPACITY, (long) tree.size() + needed));
+            target.copySubtree(tree, reused);
+            sparePool = tree;
+            tree = target;
+            return;
+        }
+        tree.reset();
+        tree.ensureCapacity(needed);
+        tree.newRoot();
+    }
+
+    /**
+     * 移除 node 的候选着法中在 ctx 上已不合法的；其余候选着法覆盖不了当前全部合法着法（如规则变化）时不可复用
+     *
+     * @return node 可以作为本次搜索的根
+     */
+    private boolean pruneStaleChildren(SimulationContext ctx, int node) {
+        int first = tree.firstChild(node);
+        int end = first + tree.moveCount(node);
+        int valid = 0;
+        for (int child = first; child < end; child++) {
+            int m = tree.move(child);
+            if (m == PackedMove.NONE) continue;
+            if (ctx.isValidMove(PackedMove.fromRow(m), PackedMove.fromCol(m), PackedMove.toRow(m), PackedMove.toCol(m))) {
+                valid++;
+            } else {
+                tree.removeChild(child);
+            }
+        }
+        return valid > 0 && valid >= ctx.generateLegalMoves(mainWorker.moveBuffer);
+    }
+
+    /** 记下 chosen 及其各子节点对应局面的 Zobrist 键，供下一次搜索复用 */
+    private void keepSubtree(SimulationContext ctx, int chosen) {
+        SimulationContext forkCtx = ctx.fork();
+        if (!forkCtx.simulateMove(tree.move(chosen))) {
+            return;
+        }
+        int first = tree.firstChild(chosen);
+        int replies = tree.childCount(chosen);
+        long[] keys = new long[replies + 1];
+        int[] nodes = new int[replies + 1];
+        int n = 0;
+        keys[n] = forkCtx.getZobristKey();
+        nodes[n++] = chosen;
+        for (int reply = first; reply < first + replies; reply++) {
+            int m = tree.move(reply);
+            if (m != PackedMove.NONE && tree.childCount(reply) > 0 && forkCtx.simulateMove(m)) {
+                keys[n] = forkCtx.getZobristKey();
+                nodes[n++] = reply;
+                forkCtx.simulateUndo();
+            }
+        }
+        reuseKeys = Arrays.copyOf(keys, n);
+        reuseNodes = Arrays.copyOf(nodes, n);
+    }
+
+    /**
+     * 调用线程与 threadCount - 1 个后台线程在同一棵树上搜索，共用模拟次数预算与时间限制。
+     * 各线程的起始副本在调用线程上依次 fork，避免并发读取 ctx 的惰性状态
+     */
+    private void runParallel(SimulationContext ctx, AtomicInteger started,
+                             int numSimulations, long startTime, long timeLimitMs) {
+        int helpers = threadCount - 1;
+        if (helperPool == null) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(helpers, helpers,
+                    HELPER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "UCC-MCTS-Worker-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            // 空闲线程超时退出，丢弃的实例不会一直占着线程
+            pool.allowCoreThreadTimeOut(true);
+            helperPool = pool;
+            helperWorkers = new SearchWorker[helpers];
+            for (int i = 0; i < helpers; i++) {
+                helperWorkers[i] = new SearchWorker();
+            }
+        }
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        for (SearchWorker worker : helperWorkers) {
+            SimulationContext workerCtx = ctx.fork();
+            futures.add(helperPool.submit(
+                    () -> worker.run(workerCtx, started, numSimulations, startTime, timeLimitMs)));
+        }
+        try {
+            mainWorker.run(ctx.fork(), started, numSimulations, startTime, timeLimitMs);
+        } finally {
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(other -> other.cancel(true));
+                    break;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("MCTS worker failed", e.getCause());
+                }
+            }
+        }
+    }
+
     public float[] getLastPolicy() {
         return lastPolicy;
     }
 
-    private static float[] buildPolicyFromRoot(MCTSNode root) {
-        if (root.children.isEmpty()) {
+    private static float[] buildPolicyFromRoot(MCTSNodePool tree) {
+        int root = MCTSNodePool.ROOT;
+        int first = tree.firstChild(root);
+        int end = first + tree.childCount(root);
+        int n = 0;
+        for (int child = first; child < end; child++) {
+            if (tree.move(child) != PackedMove.NONE) n++;
+        }
+        if (n == 0) {
             return new float[0];
         }
-        float[] policy = new float[root.children.size()];
+        float[] policy = new float[n];
         double totalVisits = 0.0;
-        for (int i = 0; i < root.children.size(); i++) {
-            policy[i] = (float) root.children.get(i).visitCount;
-            totalVisits += policy[i];
+        int i = 0;
+        for (int child = first; child < end; child++) {
+            if (tree.move(child) == PackedMove.NONE) continue;
+            policy[i] = (float) tree.visits(child);
+            totalVisits += policy[i++];
         }
         if (totalVisits > 0) {
-            for (int i = 0; i < policy.length; i++) {
+            for (i = 0; i < policy.length; i++) {
                 policy[i] /= (float) totalVisits;
             }
         }
@@ -241,82 +360,37 @@ public class MCTSAgent {
         return Math.tanh(eval / scale);
     }
 
-    private double heuristicRollout(SimulationContext ctx, int maxSteps) {
-        int steps = 0;
-        while (steps < maxSteps) {
-            List<Move> moves = ctx.generateLegalMoves();
-            if (moves.isEmpty()) {
-                return ctx.isRedTurn() ? -1.0 : 1.0;
-            }
-            Move selected = weightedRandomMove(moves, ctx);
-            ctx.simulateMove(
-                    selected.getFromRow(), selected.getFromCol(),
-                    selected.getToRow(), selected.getToCol());
-            steps++;
-        }
-        int eval = ctx.evaluate();
-        return normalizeEval(eval);
-    }
-
-    private Move weightedRandomMove(List<Move> moves, SimulationContext ctx) {
-        double[] weights = new double[moves.size()];
-        double totalWeight = 0;
-        for (int i = 0; i < moves.size(); i++) {
-            Move m = moves.get(i);
-            double w = 1.0;
-            Piece captured = ctx.getBoard().getPiece(m.getToRow(), m.getToCol());
-            if (captured != null) {
-                w += getPieceWeight(captured) * 0.1;
-            }
-            Piece movingPiece = ctx.getBoard().getPiece(m.getFromRow(), m.getFromCol());
-            if (movingPiece != null) {
-                if (movingPiece.isRed()) {
-                    if (m.getToRow() < m.getFromRow()) w *= 2.0;
-                } else {
-                    if (m.getToRow() > m.getFromRow()) w *= 2.0;
-                }
-            }
-            weights[i] = Math.max(w, 0.01);
-            totalWeight += weights[i];
-        }
-        double r = random.nextDouble() * totalWeight;
-        double cumulative = 0;
-        for (int i = 0; i < moves.size(); i++) {
-            cumulative += weights[i];
-            if (r <= cumulative) return moves.get(i);
+    /** 重复局面裁决的价值（与 Rollout 相同以红方为正）：判和为 0，长将方判负 */
+    private static double repetitionValue(GameStatus status) {
+        switch (status) {
+            case RED_CHECKMATE: return -1.0;
+            case BLACK_CHECKMATE: return 1.0;
+            default: return 0.0;
         }
-        return moves.get(moves.size() - 1);
-    }
-
-    private List<Move> sortMovesByHeuristic(List<Move> moves, SimulationContext ctx) {
-        ReadonlyBoard board = ctx.getBoard();
-        List<Move> sorted = new ArrayList<>(moves);
-        sorted.sort(Comparator.comparingInt((Move m) -> {
-            int score = 0;
-            Piece captured = board.getPiece(m.getToRow(), m.getToCol());
-            if (captured != null) score += getPieceWeight(captured) * 10;
-            Piece movingPiece = board.getPiece(m.getFromRow(), m.getFromCol());
-            if (movingPiece != null) {
-                if (movingPiece.isRed() && m.getToRow() < m.getFromRow()) score += 5;
-                else if (!movingPiece.isRed() && m.getToRow() > m.getFromRow()) score += 5;
-            }
-            return -score;
-        }));
-        return sorted;
     }
 
-    private MCTSNode selectBestChild(MCTSNode parent) {
-        MCTSNode best = null;
+    /**
+     * 正在被其他线程模拟的子节点按虚拟损失计分；parent 上有本次模拟自己的一次虚拟损失，不计入其访问数。
+     * 单线程时子节点的虚拟损失恒为 0，与串行搜索一致
+     */
+    private static int selectBestChild(MCTSNodePool tree, int parent) {
+        int count = tree.childCount(parent);
+        int first = tree.firstChild(parent);
+        int best = MCTSNodePool.NULL;
         double bestUCB = Double.NEGATIVE_INFINITY;
-        for (MCTSNode child : parent.children) {
+        double sqrtParentVisits = Math.sqrt(tree.visits(parent) + tree.virtualLoss(parent) - 1);
+        for (int child = first; child < first + count; child++) {
+            if (tree.move(child) == PackedMove.NONE) continue;
+            int pending = tree.virtualLoss(child);
+            int visits = tree.visits(child) + pending;
             double ucb;
-            if (child.visitCount == 0) {
+            if (visits == 0) {
                 ucb = Double.MAX_VALUE;
             } else {
-                double exploitation = child.totalValue / child.visitCount;
+                double exploitation = (tree.valueSum(child) - pending * VIRTUAL_LOSS) / visits;
                 // PUCT 公式：c_puct * prior * sqrt(parentVisit) / (1 + childVisit)
-                double exploration = EXPLORATION_CONSTANT * child.priorPolicy
-                        * Math.sqrt(parent.visitCount) / (1.0 + child.visitCount);
+                double exploration = EXPLORATION_CONSTANT * tree.prior(child)
+                        * sqrtParentVisits / (1.0 + visits);
                 ucb = exploitation + exploration;
             }
             if (ucb > bestUCB) {
@@ -327,18 +401,319 @@ public class MCTSAgent {
         return best;
     }
 
-    private Move pickUnexpandedMove(MCTSNode node, List<Move> sortedMoves) {
-        for (Move m : sortedMoves) {
-            boolean alreadyExpanded = false;
-            for (MCTSNode child : node.children) {
-                if (movesEqual(child.move, m)) {
-                    alreadyExpanded = true;
+    /** 一次模拟下行到达的叶节点：由根到叶的路径、该路径上的模拟副本与（批量模拟时）尚未返回的推理结果；各线程复用 */
+    private static final class Leaf {
+        SimulationContext ctx;
+        int[] path = new int[64];
+        int depth;
+        GameStatus repetition;
+        CompletableFuture<float[]> pending;
+        float[] nnResult;
+
+        void start(SimulationContext forkCtx, int root) {
+            ctx = forkCtx;
+            depth = 0;
+            repetition = GameStatus.RUNNING;
+            pending = null;
+            nnResult = null;
+            push(root);
+        }
+
+        void push(int node) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = node;
+        }
+
+        int node() {
+            return path[depth - 1];
+        }
+
+        /** 释放模拟副本与推理结果 */
+        void clear() {
+            ctx = null;
+            pending = null;
+            nnResult = null;
+        }
+    }
+
+    /** 每个搜索线程独占的缓冲区与随机数，执行选择、评估、扩展与反向传播 */
+    private final class SearchWorker {
+        private final Random random = new Random();
+        private final int[] moveBuffer = new int[PackedMove.BUFFER_SIZE];
+        /** 排序键：高 32 位为负的启发式分数，低 32 位为着法在 moveBuffer 中的下标（保证稳定排序） */
+        private final long[] sortKeys = new long[PackedMove.BUFFER_SIZE];
+        private final double[] weights = new double[PackedMove.BUFFER_SIZE];
+        /** 一轮批量模拟中待评估的叶节点，按批大小增长 */
+        private Leaf[] batch = new Leaf[0];
+        /** 逐个模拟时使用的叶节点 */
+        private final Leaf single = new Leaf();
+
+        /** 反复模拟，直到共享的模拟次数预算用完或超时；有推理回调且批大小大于 1 时按批模拟 */
+        void run(SimulationContext ctx, AtomicInteger started,
+                 int numSimulations, long startTime, long timeLimitMs) {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (timeLimitMs > 0 && System.currentTimeMillis() - startTime >= timeLimitMs) {
                     break;
                 }
+                if (leafBatchSize > 1 && inferenceFunction != null) {
+                    if (simulateBatch(ctx, started, numSimulations) == 0) {
+                        break;
+                    }
+                } else {
+                    if (started.getAndIncrement() >= numSimulations) {
+                        break;
+                    }
+                    simulate(ctx);
+                }
             }
-            if (!alreadyExpanded) return m;
         }
-        return null;
+
+        private void simulate(SimulationContext ctx) {
+            Leaf leaf = single;
+            descend(ctx, leaf);
+
+            // ── 3. 评估 (Evaluation) ──
+            // 先评估叶节点，获取神经网络输出的 value 和 policy
+            if (leaf.repetition == GameStatus.RUNNING && inferenceFunction != null) {
+                // 使用神经网络评估（异步，同步等待结果）
+                // 直接传递 forkCtx，由调用方 lambda 从 SimulationContext 提取 BoardState 并提交推理
+                try {
+                    leaf.nnResult = inferenceFunction.apply(leaf.ctx, null).get();
+                } catch (Exception e) {
+                    leaf.nnResult = null;
+                }
+            }
+            expandAndBackup(leaf);
+            leaf.clear();
+        }
+
+        /**
+         * 一轮最多收集 leafBatchSize 个叶节点：每次下行留下的虚拟损失使后续下行偏向其他分支；
+         * 待评估的叶节点一起提交推理，全部返回后依次扩展并反向传播
+         *
+         * @return 本轮占用的模拟次数，预算已用完时为 0
+         */
+        private int simulateBatch(SimulationContext ctx, AtomicInteger started, int numSimulations) {
+            if (batch.length < leafBatchSize) {
+                int old = batch.length;
+                batch = Arrays.copyOf(batch, leafBatchSize);
+                for (int i = old; i < batch.length; i++) {
+                    batch[i] = new Leaf();
+                }
+            }
+            int count = 0;
+            while (count < leafBatchSize && started.getAndIncrement() < numSimulations) {
+                Leaf leaf = batch[count++];
+                descend(ctx, leaf);
+                if (leaf.repetition == GameStatus.RUNNING) {
+                    try {
+                        leaf.pending = inferenceFunction.apply(leaf.ctx, null);
+                    } catch (Exception e) {
+                        leaf.pending = null;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                Leaf leaf = batch[i];
+                if (leaf.pending != null) {
+                    try {
+                        leaf.nnResult = leaf.pending.get();
+                    } catch (Exception e) {
+                        leaf.nnResult = null;
+                    }
+                    leaf.pending = null;
+                }
+                expandAndBackup(leaf);
+                leaf.clear();
+            }
+            return count;
+        }
+
+        /** ── 1. 选择 (Selection) ──：沿树下行至叶节点，途经节点各计一次虚拟损失并记入 leaf 的路径 */
+        private void descend(SimulationContext ctx, Leaf leaf) {
+            MCTSNodePool tree = MCTSAgent.this.tree;
+            // 每次模拟创建新的 fork，避免 simulateUndo 累积错误导致棋盘状态不一致
+            SimulationContext forkCtx = ctx.fork();
+            int node = MCTSNodePool.ROOT;
+            leaf.start(forkCtx, node);
+            tree.addVirtualLoss(node);
+
+            while (true) {
+                // 重复局面已可裁决，视为终局叶节点
+                if (forkCtx.getRepetitionStatus() != GameStatus.RUNNING) {
+                    break;
+                }
+                if (forkCtx.generateLegalMoves(moveBuffer) == 0) {
+                    break;
+                }
+                if (tree.isExpanded(node)) {
+                    int bestChild = selectBestChild(tree, node);
+                    if (bestChild == MCTSNodePool.NULL) {
+                        break;
+                    }
+                    int childMove = tree.move(bestChild);
+                    // 子节点的走法是之前某次模拟中生成的，在新的 forkCtx 上可能不合法
+                    // 移除不合法走法（若仅标记而保留，它可能一直被选中，导致选择阶段死循环）
+                    if (!forkCtx.isValidMove(
+                            PackedMove.fromRow(childMove), PackedMove.fromCol(childMove),
+                            PackedMove.toRow(childMove), PackedMove.toCol(childMove))) {
+                        tree.removeChild(bestChild);
+                        continue;
+                    }
+                    tree.addVirtualLoss(bestChild);
+                    forkCtx.simulateMove(childMove);
+                    node = bestChild;
+                    leaf.push(node);
+                } else {
+                    break;
+                }
+            }
+            leaf.repetition = forkCtx.getRepetitionStatus();
+        }
+
+        /** 由叶节点的推理结果（无结果时走启发式 Rollout）扩展一个子节点，并沿路径反向传播价值、撤回虚拟损失 */
+        private void expandAndBackup(Leaf leaf) {
+            MCTSNodePool tree = MCTSAgent.this.tree;
+            SimulationContext forkCtx = leaf.ctx;
+            int node = leaf.node();
+            float[] nnResult = leaf.nnResult;
+            double value;
+            if (leaf.repetition != GameStatus.RUNNING) {
+                // 重复局面直接按裁决结果计值，不再推理或扩展
+                value = repetitionValue(leaf.repetition);
+            } else if (nnResult != null) {
+                // nnResult[0] = value, nnResult[1...] = policy
+                value = nnResult.length > 0 ? nnResult[0] : 0.0;
+            } else {
+                // 无神经网络或推理失败 → 回退到纯启发式评估
+                value = heuristicRollout(forkCtx, ROLLOUT_DEPTH);
+            }
+
+            // ── 2. 扩展 (Expansion) ──
+            int parentMoveCount = leaf.repetition != GameStatus.RUNNING ? 0 : forkCtx.generateLegalMoves(moveBuffer);
+            if (parentMoveCount > 0 && !tree.isExpanded(node)) {
+                // 首次扩展时按启发式排序写入全部候选着法，之后按此顺序逐个激活
+                boolean reserve = !tree.hasChildSlots(node);
+                if (reserve) {
+                    sortMovesByHeuristic(parentMoveCount, forkCtx);
+                }
+                int child;
+                synchronized (tree.lock(node)) {
+                    // 加锁后再判断：其他线程（或同批的其他叶节点）可能刚扩展过同一节点
+                    if (reserve && !tree.hasChildSlots(node)) {
+                        reserveChildren(tree, node, parentMoveCount, nnResult);
+                    }
+                    child = tree.hasChildSlots(node) ? tree.activateChild(node) : MCTSNodePool.NULL;
+                }
+                if (child != MCTSNodePool.NULL) {
+                    leaf.push(child);
+                }
+            }
+
+            // ── 4. 反向传播 (Backpropagation) ──
+            for (int i = leaf.depth - 1; i >= 0; i--) {
+                tree.backup(leaf.path[i], value);
+                value = -value;
+            }
+        }
+
+        /**
+         * 按 sortKeys 的顺序为 node 写入 moveBuffer 前 n 个着法及其 policy 先验概率（nnResult 按生成顺序给出）；
+         * 节点池已满时不扩展
+         */
+        private void reserveChildren(MCTSNodePool tree, int node, int n, float[] nnResult) {
+            int start = tree.reserveChildren(node, n);
+            if (start == MCTSNodePool.NULL) {
+                return;
+            }
+            for (int k = 0; k < n; k++) {
+                int idx = (int) sortKeys[k];
+                float prior = 0f;
+                if (nnResult != null && 1 + idx < nnResult.length) {
+                    prior = nnResult[1 + idx];
+                }
+                tree.initSlot(start + k, moveBuffer[idx], prior);
+            }
+        }
+
+        /** 随机走至多 maxSteps 步后估值；返回前撤销走过的着法，ctx 回到原局面以供随后的扩展使用 */
+        private double heuristicRollout(SimulationContext ctx, int maxSteps) {
+            int steps = 0;
+            try {
+                while (steps < maxSteps) {
+                    int n = ctx.generateLegalMoves(moveBuffer);
+                    if (n == 0) {
+                        return ctx.isRedTurn() ? -1.0 : 1.0;
+                    }
+                    if (!ctx.simulateMove(weightedRandomMove(n, ctx))) {
+                        break;
+                    }
+                    steps++;
+                    GameStatus repetition = ctx.getRepetitionStatus();
+                    if (repetition != GameStatus.RUNNING) {
+                        return repetitionValue(repetition);
+                    }
+                }
+                int eval = ctx.evaluate();
+                return normalizeEval(eval);
+            } finally {
+                for (int i = 0; i < steps; i++) {
+                    ctx.simulateUndo();
+                }
+            }
+        }
+
+        private int weightedRandomMove(int n, SimulationContext ctx) {
+            ReadonlyBoard board = ctx.getBoard();
+            double totalWeight = 0;
+            for (int i = 0; i < n; i++) {
+                int m = moveBuffer[i];
+                int fr = PackedMove.fromRow(m), tr = PackedMove.toRow(m);
+                double w = 1.0;
+                Piece captured = board.getPiece(tr, PackedMove.toCol(m));
+                if (captured != null) {
+                    w += getPieceWeight(captured) * 0.1;
+                }
+                Piece movingPiece = board.getPiece(fr, PackedMove.fromCol(m));
+                if (movingPiece != null) {
+                    if (movingPiece.isRed()) {
+                        if (tr < fr) w *= 2.0;
+                    } else {
+                        if (tr > fr) w *= 2.0;
+                    }
+                }
+                weights[i] = Math.max(w, 0.01);
+                totalWeight += weights[i];
+            }
+            double r = random.nextDouble() * totalWeight;
+            double cumulative = 0;
+            for (int i = 0; i < n; i++) {
+                cumulative += weights[i];
+                if (r <= cumulative) return moveBuffer[i];
+            }
+            return moveBuffer[n - 1];
+        }
+
+        /** 按启发式分数降序排列 moveBuffer 前 n 个着法的下标，结果写入 sortKeys */
+        private void sortMovesByHeuristic(int n, SimulationContext ctx) {
+            ReadonlyBoard board = ctx.getBoard();
+            for (int i = 0; i < n; i++) {
+                int m = moveBuffer[i];
+                int fr = PackedMove.fromRow(m), tr = PackedMove.toRow(m);
+                int score = 0;
+                Piece captured = board.getPiece(tr, PackedMove.toCol(m));
+                if (captured != null) score += getPieceWeight(captured) * 10;
+                Piece movingPiece = board.getPiece(fr, PackedMove.fromCol(m));
+                if (movingPiece != null) {
+                    if (movingPiece.isRed() && tr < fr) score += 5;
+                    else if (!movingPiece.isRed() && tr > fr) score += 5;
+                }
+                sortKeys[i] = ((long) -score << 32) | i;
+            }
+            Arrays.sort(sortKeys, 0, n);
+        }
     }
 
     private static int getPieceWeight(Piece piece) {
@@ -354,26 +729,4 @@ public class MCTSAgent {
             default: return 0;
         }
     }
-
-    private static boolean movesEqual(Move a, Move b) {
-        if (a == null || b == null) return false;
-        return a.getFromRow() == b.getFromRow()
-                && a.getFromCol() == b.getFromCol()
-                && a.getToRow() == b.getToRow()
-                && a.getToCol() == b.getToCol()
-                && a.getSelectedStackIndex() == b.getSelectedStackIndex();
-    }
-
-    /**
-     * 在 moves 列表中查找与 target 相等的着法索引。
-     * @return 匹配的索引，未找到返回 -1
-     */
-    private static int indexOfMove(List<Move> moves, Move target) {
-        for (int i = 0; i < moves.size(); i++) {
-            if (movesEqual(moves.get(i), target)) {
-                return i;
-            }
-        }
-        return -1;
-    }
 }
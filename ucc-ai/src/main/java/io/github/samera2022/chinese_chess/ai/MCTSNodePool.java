@@ -0,0 +1,260 @@
+package io.github.samera2022.chinese_chess.ai;
+
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MCTS 搜索树的节点池：节点以下标表示，各字段存放在预分配的并行基本类型数组中，搜索之间整体重置，不按节点分配对象。
+ *
+ * <p>节点首次扩展时为其全部候选着法一次性占用连续槽位（firstChild 起 moveCount 个，按走法排序写入着法与先验概率），
+ * 之后每次扩展按顺序激活下一个，childCount 为已激活的子节点数。根节点下标恒为 {@link #ROOT}，
+ * 不会是任何节点的子节点，因此 firstChild 为 0 表示尚未占用槽位。被移除的子节点着法置为 {@link PackedMove#NONE}。</p>
+ *
+ * <p>访问次数、虚拟损失与价值和以原子操作更新；占用与激活子节点须持有 {@link #lock(int)}，
+ * childCount 以 volatile 写发布，读取方先读 childCount 再读其余子节点字段即可无锁遍历。
+ * 容量只在搜索线程启动前调整，搜索中槽位用完时不再扩展。</p>
+ */
+final class MCTSNodePool {
+    /** 根节点下标 */
+    static final int ROOT = 0;
+    /** 无效下标 */
+    static final int NULL = -1;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    /** 分段锁数量（2 的幂） */
+    private static final int LOCK_STRIPES = 64;
+
+    private int[] moves;
+    private float[] priors;
+    private int[] visits;
+    /** 下行经过、尚未回传的模拟数 */
+    private int[] virtualLoss;
+    private double[] valueSums;
+    private int[] firstChild;
+    private int[] childCount;
+    private int[] moveCount;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    MCTSNodePool(int capacity) {
+        allocateArrays(capacity);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    int capacity() {
+        return moves.length;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /** 清空已用槽位；不得与搜索线程并发调用 */
+    void reset() {
+        int used = Math.min(size.get(), capacity());
+        Arrays.fill(visits, 0, used, 0);
+        Arrays.fill(virtualLoss, 0, used, 0);
+        Arrays.fill(valueSums, 0, used, 0.0);
+        Arrays.fill(firstChild, 0, used, 0);
+        Arrays.fill(childCount, 0, used, 0);
+        Arrays.fill(moveCount, 0, used, 0);
+        size.set(0);
+    }
+
+    /** 确保至少有 n 个槽位；仅在池为空时调用，扩容后内容作废 */
+    void ensureCapacity(int n) {
+        if (size.get() != 0) {
+            throw new IllegalStateException("node pool must be empty before resizing");
+        }
+        if (n > capacity()) {
+            allocateArrays(n);
+        }
+    }
+
+    /** 在空池中创建根节点 */
+    int newRoot() {
+        int root = allocate(1);
+        moves[root] = PackedMove.NONE;
+        return root;
+    }
+
+    /** 保护 node 的子节点占用与激活 */
+    Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    /** 调用方须持有 lock(node)：为 node 占用 n 个连续槽位，返回首个槽位下标；槽位不足返回 {@link #NULL} */
+    int reserveChildren(int node, int n) {
+        int start = allocate(n);
+        if (start != NULL) {
+            firstChild[node] = start;
+            moveCount[node] = n;
+        }
+        return start;
+    }
+
+    /** 写入占用槽位的着法与先验概率，须在该槽位激活前调用 */
+    void initSlot(int slot, int move, float prior) {
+        moves[slot] = move;
+        priors[slot] = prior;
+    }
+
+    /**
+     * 调用方须持有 lock(node)：按顺序激活下一个未被移除的子节点，先为其计一次虚拟损失再发布。
+     *
+     * @return 激活的子节点下标，全部已激活返回 {@link #NULL}
+     */
+    int activateChild(int node) {
+        int first = firstChild[node], n = moveCount[node];
+        int c = childCount[node];
+        while (c < n && moves[first + c] == PackedMove.NONE) {
+            c++;
+        }
+        if (c >= n) {
+            INTS.setVolatile(childCount, node, n);
+            return NULL;
+        }
+        int child = first + c;
+        INTS.getAndAdd(virtualLoss, child, 1);
+        INTS.setVolatile(childCount, node, c + 1);
+        return child;
+    }
+
+    /** 着法在当前局面上已不合法的子节点不再被选择 */
+    void removeChild(int child) {
+        INTS.setVolatile(moves, child, PackedMove.NONE);
+    }
+
+    /** 已激活的子节点数；读子节点字段前先调用 */
+    int childCount(int node) {
+        return (int) INTS.getVolatile(childCount, node);
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    /** 全部候选着法数（已占用槽位数），未占用时为 0 */
+    int moveCount(int node) {
+        return moveCount[node];
+    }
+
+    boolean hasChildSlots(int node) {
+        return firstChild[node] != 0;
+    }
+
+    boolean isExpanded(int node) {
+        int c = childCount(node);
+        return c > 0 && c >= moveCount[node];
+    }
+
+    int move(int node) {
+        return (int) INTS.getOpaque(moves, node);
+    }
+
+    float prior(int node) {
+        return priors[node];
+    }
+
+    int visits(int node) {
+        return (int) INTS.getOpaque(visits, node);
+    }
+
+    int virtualLoss(int node) {
+        return (int) INTS.getOpaque(virtualLoss, node);
+    }
+
+    double valueSum(int node) {
+        return (double) DOUBLES.getOpaque(valueSums, node);
+    }
+
+    double averageValue(int node) {
+        int n = visits(node);
+        return n > 0 ? valueSum(node) / n : 0.0;
+    }
+
+    void addVirtualLoss(int node) {
+        INTS.getAndAdd(virtualLoss, node, 1);
+    }
+
+    /** 计入一次模拟结果并撤回其虚拟损失 */
+    void backup(int node, double value) {
+        double old;
+        do {
+            old = (double) DOUBLES.getVolatile(valueSums, node);
+        } while (!DOUBLES.compareAndSet(valueSums, node, old, old + value));
+        INTS.getAndAdd(visits, node, 1);
+        INTS.getAndAdd(virtualLoss, node, -1);
+    }
+
+    /**
+     * 把 source 中以 node 为根的子树复制到本池（须为空且容量不小于 source 的已用槽位数），
+     * 未激活的候选着法一并复制；返回新的根节点下标
+     */
+    int copySubtree(MCTSNodePool source, int node) {
+        int root = allocate(1);
+        moves[root] = PackedMove.NONE;
+        visits[root] = source.visits[node];
+        valueSums[root] = source.valueSums[node];
+        int[] queue = new int[64];
+        int head = 0, tail = 0;
+        queue[tail++] = node;
+        queue[tail++] = root;
+        while (head < tail) {
+            int from = queue[head++], to = queue[head++];
+            int active = source.childCount[from];
+            if (active == 0) continue;
+            int n = source.moveCount[from];
+            int srcStart = source.firstChild[from];
+            int start = allocate(n);
+            firstChild[to] = start;
+            moveCount[to] = n;
+            childCount[to] = active;
+            System.arraycopy(source.moves, srcStart, moves, start, n);
+            System.arraycopy(source.priors, srcStart, priors, start, n);
+            System.arraycopy(source.visits, srcStart, visits, start, active);
+            System.arraycopy(source.valueSums, srcStart, valueSums, start, active);
+            if (tail + 2 * active > queue.length) {
+                queue = Arrays.copyOf(queue, Math.max(queue.length * 2, tail + 2 * active));
+            }
+            for (int k = 0; k < active; k++) {
+                queue[tail++] = srcStart + k;
+                queue[tail++] = start + k;
+            }
+        }
+        return root;
+    }
+
+    /** @return 首个槽位下标，容量不足返回 {@link #NULL} */
+    private int allocate(int n) {
+        int start;
+        do {
+            start = size.get();
+            if (start + n > capacity()) {
+                return NULL;
+            }
+        } while (!size.compareAndSet(start, start + n));
+        return start;
+    }
+
+    private void allocateArrays(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        }
+        moves = new int[capacity];
+        priors = new float[capacity];
+        visits = new int[capacity];
+        virtualLoss = new int[capacity];
+        valueSums = new double[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        moveCount = new int[capacity];
+    }
+}
@@ -7,7 +7,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import io.github.samera2022.chinese_chess.common.model.BoardState;
-import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.core.engine.Board;
 import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
@@ -42,6 +42,7 @@ public class PyBridge {
     // 内部状态：持有当前棋盘和规则
     private SimulationBoard simBoard;
     private JsonObject currentRules;
+    private final int[] moveBuffer = new int[PackedMove.BUFFER_SIZE];
 
     public static void main(String[] args) {
         PyBridge bridge = new PyBridge();
@@ -118,14 +119,15 @@ public class PyBridge {
             return err;
         }
 
-        List<Move> moves = simBoard.generateLegalMoves();
+        int n = simBoard.generateLegalMoves(moveBuffer);
         JsonArray movesArray = new JsonArray();
-        for (Move m : moves) {
+        for (int i = 0; i < n; i++) {
+            int m = moveBuffer[i];
             JsonObject mj = new JsonObject();
-            mj.addProperty("fromRow", m.getFromRow());
-            mj.addProperty("fromCol", m.getFromCol());
-            mj.addProperty("toRow",   m.getToRow());
-            mj.addProperty("toCol",   m.getToCol());
+            mj.addProperty("fromRow", PackedMove.fromRow(m));
+            mj.addProperty("fromCol", PackedMove.fromCol(m));
+            mj.addProperty("toRow",   PackedMove.toRow(m));
+            mj.addProperty("toCol",   PackedMove.toCol(m));
             movesArray.add(mj);
         }
 
@@ -20,6 +20,7 @@ import java.util.Map;
  * <h3>配置参数</h3>
  * <ul>
  *   <li><b>numSimulations</b>（int，默认 400）：MCTS 每步的模拟次数。</li>
+ *   <li><b>numThreads</b>（int，默认 1）：MCTS 搜索线程数，大于 1 时多个线程并行搜索同一棵树。</li>
  * </ul>
  *
  * @see MCTSAgent
@@ -33,6 +34,9 @@ public class RuleAwareAI implements AIStrategy {
     /** 当前配置 */
     private AIStrategyConfig currentConfig;
 
+    /** 各步复用的搜索实例（及其搜索线程与上一步保留的子树） */
+    private final MCTSAgent mctsAgent = new MCTSAgent();
+
     /** PyTorch 模型桥接，为 MCTS 提供神经网络评估（Phase 1 使用 fallback 模式） */
     private final PyTorchBridge pytorchBridge;
 
@@ -45,6 +49,7 @@ public class RuleAwareAI implements AIStrategy {
     public RuleAwareAI() {
         Map<String, Object> defaults = new HashMap<>();
         defaults.put("numSimulations", 400);
+        defaults.put("numThreads", 1);
         this.currentConfig = new AIStrategyConfig(defaults);
         this.numSimulations = currentConfig.getInt("numSimulations", 400);
         this.pytorchBridge = PyTorchBridge.createFallback();
@@ -64,7 +69,7 @@ public class RuleAwareAI implements AIStrategy {
      * 查找当前局面下的最佳着法。
      *
      * <p>当前阶段使用纯 MCTS 搜索，不依赖神经网络评估。
-     * 创建 {@link MCTSAgent} 实例并委托其执行搜索。
+     * 委托本实例持有的 {@link MCTSAgent} 执行搜索。
      * {@link #pytorchBridge} 已初始化（Phase 1 fallback 模式），
      * 供后续 Phase 2+ 在 MCTSAgent 内部集成神经网络评估时使用。</p>
      *
@@ -78,8 +83,7 @@ public class RuleAwareAI implements AIStrategy {
         // 获取只读棋盘，用于后续可能的局面评估（当前阶段 MCTSAgent 不需要神经网络）
         ReadonlyBoard board = ctx.getBoard();
 
-        // 创建 MCTSAgent 实例并执行搜索
-        MCTSAgent mctsAgent = new MCTSAgent();
+        // 委托 MCTSAgent 执行搜索
         return mctsAgent.findBestMove(ctx, numSimulations, timeLimitMs);
     }
 
@@ -109,8 +113,8 @@ public class RuleAwareAI implements AIStrategy {
     /**
      * 应用新的 AI 策略配置。
      *
-     * <p>从配置中读取 {@code numSimulations} 参数并更新内部状态。
-     * </p>
+     * <p>从配置中读取 {@code numSimulations} 与 {@code numThreads} 参数并更新内部状态，
+     * 线程数在下一次搜索时生效。</p>
      *
      * @param config 新的配置对象
      */
@@ -118,5 +122,6 @@ public class RuleAwareAI implements AIStrategy {
     public void applyConfig(AIStrategyConfig config) {
         this.currentConfig = config;
         this.numSimulations = config.getInt("numSimulations", 400);
+        mctsAgent.setThreadCount(Math.max(1, config.getInt("numThreads", 1)));
     }
 }
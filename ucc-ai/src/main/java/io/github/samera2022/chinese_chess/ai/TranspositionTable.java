@@ -0,0 +1,71 @@
+package io.github.samera2022.chinese_chess.ai;
+
+import java.util.Arrays;
+
+/**
+ * Alpha-Beta 搜索的置换表：以局面 Zobrist 键直接寻址（容量为 2 的幂，单槽），并行数组存放最佳着法、分数、深度与边界类型。
+ *
+ * <p>同一局面的表项只被不浅于它的搜索结果覆盖，不同局面直接替换。非线程安全：每个搜索实例持有自己的表。</p>
+ */
+final class TranspositionTable {
+    /** 空槽 */
+    static final byte NONE = 0;
+    /** 精确值 */
+    static final byte EXACT = 1;
+    /** 下界（发生 beta 截断） */
+    static final byte LOWER = 2;
+    /** 上界（所有着法都未超过 alpha） */
+    static final byte UPPER = 3;
+
+    private final long[] keys;
+    private final int[] moves;
+    private final int[] scores;
+    private final byte[] depths;
+    private final byte[] bounds;
+    private final int mask;
+
+    /** @param bits 表项数为 2^bits */
+    TranspositionTable(int bits) {
+        if (bits < 1 || bits > 28) {
+            throw new IllegalArgumentException("hash bits out of range: " + bits);
+        }
+        int size = 1 << bits;
+        this.keys = new long[size];
+        this.moves = new int[size];
+        this.scores = new int[size];
+        this.depths = new byte[size];
+        this.bounds = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /** @return 命中的槽位，未命中返回 -1 */
+    int probe(long key) {
+        int i = index(key);
+        return bounds[i] != NONE && keys[i] == key ? i : -1;
+    }
+
+    int move(int slot) { return moves[slot]; }
+    int score(int slot) { return scores[slot]; }
+    int depth(int slot) { return depths[slot]; }
+    byte bound(int slot) { return bounds[slot]; }
+
+    void store(long key, int depth, byte bound, int score, int move) {
+        int i = index(key);
+        if (bounds[i] != NONE && keys[i] == key && depth < depths[i]) {
+            return;
+        }
+        keys[i] = key;
+        moves[i] = move;
+        scores[i] = score;
+        depths[i] = (byte) Math.max(0, Math.min(depth, Byte.MAX_VALUE));
+        bounds[i] = bound;
+    }
+
+    void clear() {
+        Arrays.fill(bounds, NONE);
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
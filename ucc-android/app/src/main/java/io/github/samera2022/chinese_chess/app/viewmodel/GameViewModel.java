@@ -10,6 +10,7 @@ import androidx.lifecycle.ViewModel;
 import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import io.github.samera2022.chinese_chess.api.net.NetworkSession;
@@ -20,6 +21,7 @@ import io.github.samera2022.chinese_chess.common.model.BoardState;
 import io.github.samera2022.chinese_chess.common.model.Move;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.core.engine.GameEngine;
+import io.github.samera2022.chinese_chess.core.engine.GameSnapshot;
 import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
 
 public class GameViewModel extends ViewModel implements GameStateListener {
@@ -34,6 +36,8 @@ public class GameViewModel extends ViewModel implements GameStateListener {
     private final MutableLiveData<List<Move>> moveHistory = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<Point> selectedPosition = new MutableLiveData<>(null);
     private final MutableLiveData<List<Point>> validMoves = new MutableLiveData<>(new ArrayList<>());
+    /** 已推送到 LiveData 的引擎快照版本；版本未变时跳过重复推送 */
+    private volatile long publishedVersion = -1;
 
     public GameViewModel() {
         this.engine = new GameEngine();
@@ -137,12 +141,10 @@ public class GameViewModel extends ViewModel implements GameStateListener {
         }
         selectedPosition.setValue(new Point(row, col));
         List<Point> moves = new ArrayList<>();
-        for (int r = 0; r < engine.getBoardRows(); r++) {
-            for (int c = 0; c < engine.getBoardCols(); c++) {
-                if (engine.isValidMove(row, col, r, c)) {
-                    moves.add(new Point(r, c));
-                }
-            }
+        BitSet targets = engine.getLegalDestinations(row, col, -1);
+        int cols = engine.getBoardCols();
+        for (int sq = targets.nextSetBit(0); sq >= 0; sq = targets.nextSetBit(sq + 1)) {
+            moves.add(new Point(sq / cols, sq % cols));
         }
         validMoves.setValue(moves);
     }
@@ -169,19 +171,31 @@ public class GameViewModel extends ViewModel implements GameStateListener {
 
     @Override
     public void onMoveExecuted(Move move) {
-        boardState.postValue(engine.getBoardState());
-        moveHistory.postValue(new ArrayList<>(engine.getMoveHistory()));
-        isRedTurn.postValue(engine.isRedTurn());
+        GameSnapshot snapshot = engine.getSnapshot();
+        if (!markPublished(snapshot)) return;
+        boardState.postValue(snapshot.getBoardState());
+        moveHistory.postValue(snapshot.getMoveHistory());
+        isRedTurn.postValue(snapshot.isRedTurn());
     }
 
     private void refreshLiveData() {
-        boardState.setValue(engine.getBoardState());
-        moveHistory.setValue(new ArrayList<>(engine.getMoveHistory()));
-        isRedTurn.setValue(engine.isRedTurn());
+        GameSnapshot snapshot = engine.getSnapshot();
+        if (!markPublished(snapshot)) return;
+        boardState.setValue(snapshot.getBoardState());
+        moveHistory.setValue(snapshot.getMoveHistory());
+        isRedTurn.setValue(snapshot.isRedTurn());
+    }
+
+    /** 快照（棋盘、着法记录、行棋方取自同一版本，彼此一致）尚未推送过时记录其版本并返回 true */
+    private boolean markPublished(GameSnapshot snapshot) {
+        if (snapshot.getVersion() == publishedVersion) return false;
+        publishedVersion = snapshot.getVersion();
+        return true;
     }
 
     /** 强制刷新所有 LiveData（用于棋盘重建后更新 UI） */
     public void refreshAll() {
+        publishedVersion = -1;
         refreshLiveData();
         gameStatus.setValue(engine.getGameState().name());
         clearSelection();
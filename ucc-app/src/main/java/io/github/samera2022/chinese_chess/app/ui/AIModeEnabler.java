@@ -1,12 +1,12 @@
 package io.github.samera2022.chinese_chess.app.ui;
 
+import io.github.samera2022.chinese_chess.ai.AlphaBetaAI;
 import io.github.samera2022.chinese_chess.ai.RuleAwareAI;
 import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.spi.AIStrategy;
 import io.github.samera2022.chinese_chess.common.spi.GameSession;
-import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
-import io.github.samera2022.chinese_chess.core.engine.Board;
-import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
 
 import javax.swing.*;
 import java.util.concurrent.ExecutorService;
@@ -18,13 +18,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  * <p>负责管理 AI 对弈模式的开关状态，以及在回合切换时
  * 自动触发 AI 走子（异步执行，不阻塞 EDT）。
- * AI 默认执黑方，可通过 {@link #setAIPlaysRed(boolean)} 配置执方。</p>
+ * AI 默认执黑方，可通过 {@link #setAIPlaysRed(boolean)} 配置执方；
+ * 搜索策略默认为 {@link RuleAwareAI}（MCTS，按 CPU 核数多线程搜索），可通过 {@link #setStrategy(AIStrategy)} 切换（如 Alpha-Beta）。</p>
  *
  * <h3>线程安全</h3>
  * <ul>
  *   <li>AI 搜索在单线程 {@link ExecutorService} 中执行，避免阻塞 EDT。</li>
  *   <li>通过 {@link #aiRunning} 做幂等保护，同一时间只有一个 AI 搜索运行。</li>
  *   <li>AI 结果通过 {@link SwingUtilities#invokeLater} 应用到棋盘。</li>
+ *   <li>策略实例在各步之间复用，切换策略在下一次搜索时生效。</li>
  * </ul>
  */
 public class AIModeEnabler {
@@ -54,6 +56,12 @@ public class AIModeEnabler {
     /** AI 执红方开关（false = 执黑方，默认） */
     private volatile boolean aiPlaysRed = false;
 
+    /** 每步搜索的时间限制（毫秒） */
+    private static final long AI_TIME_LIMIT_MS = 5000;
+
+    /** 当前搜索策略 */
+    private volatile AIStrategy strategy = newMctsStrategy();
+
     /**
      * 构造 AIModeEnabler。
      *
@@ -142,18 +150,14 @@ public class AIModeEnabler {
                     return;
                 }
 
-                // a. 从 session 直接获取 Board，省去 BoardState 序列化往返
-                ReadonlyBoard rb = session.getBoard();
-                if (!(rb instanceof Board)) {
-                    return; // 安全检查：非 Board 实例无法构造 SimulationBoard
-                }
-                SimulationBoard simBoard = new SimulationBoard((Board) rb);
+                // a. 由 session 创建模拟上下文（携带本局局面历史，AI 可识别重复局面）
+                SimulationContext simBoard = session.newSimulation();
 
-                // b. 创建 RuleAwareAI 实例
-                RuleAwareAI ai = new RuleAwareAI();
+                // b. 取当前选择的策略
+                AIStrategy ai = strategy;
 
-                // c. 调用 AI 搜索：maxDepth=0（忽略），timeLimitMs=5000
-                Move bestMove = ai.findBestMove(simBoard, 0, 5000);
+                // c. 调用 AI 搜索：maxDepth=0（由策略在时限内自行决定），timeLimitMs=5000
+                Move bestMove = ai.findBestMove(simBoard, 0, AI_TIME_LIMIT_MS);
 
                 // d. 如果找到着法，通过 SwingUtilities.invokeLater 应用到棋盘
                 if (bestMove != null) {
@@ -161,11 +165,12 @@ public class AIModeEnabler {
                     final int fc = bestMove.getFromCol();
                     final int tr = bestMove.getToRow();
                     final int tc = bestMove.getToCol();
+                    final int si = bestMove.getSelectedStackIndex();
 
                     SwingUtilities.invokeLater(() -> {
                         try {
                             // forceApplyMove 直接应用，不经过合法性校验（信任 AI）
-                            session.forceApplyMove(fr, fc, tr, tc, null /* promotionType */, -1 /* stackIndex */);
+                            session.forceApplyMove(fr, fc, tr, tc, null /* promotionType */, si);
 
                             // e. 更新 UI
                             controller.updateStatus();
@@ -203,6 +208,36 @@ public class AIModeEnabler {
         return aiPlaysRed;
     }
 
+    /**
+     * 创建桌面端使用的 MCTS 策略：搜索线程数取 CPU 核数。
+     *
+     * @return 新的 {@link RuleAwareAI} 实例
+     */
+    public static AIStrategy newMctsStrategy() {
+        RuleAwareAI ai = new RuleAwareAI();
+        ai.applyConfig(ai.getConfig().with("numThreads", Runtime.getRuntime().availableProcessors()));
+        return ai;
+    }
+
+    /**
+     * 设置 AI 搜索策略，在下一次搜索时生效（正在进行的搜索不受影响）。
+     *
+     * @param strategy 搜索策略，如 {@link RuleAwareAI} 或 {@link AlphaBetaAI}
+     */
+    public void setStrategy(AIStrategy strategy) {
+        if (strategy == null) throw new IllegalArgumentException("strategy cannot be null");
+        this.strategy = strategy;
+    }
+
+    /**
+     * 查询当前 AI 搜索策略。
+     *
+     * @return 当前策略
+     */
+    public AIStrategy getStrategy() {
+        return strategy;
+    }
+
     /**
      * 关闭 AI 执行器。
      * 应在应用退出时调用。
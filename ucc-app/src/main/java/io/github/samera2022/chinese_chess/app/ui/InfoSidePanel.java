@@ -1,6 +1,8 @@
 package io.github.samera2022.chinese_chess.app.ui;
 
 import com.google.gson.JsonObject;
+import io.github.samera2022.chinese_chess.ai.AlphaBetaAI;
+import io.github.samera2022.chinese_chess.ai.RuleAwareAI;
 import io.github.samera2022.chinese_chess.common.UpdateInfo;
 import io.github.samera2022.chinese_chess.core.engine.GameEngine;
 import io.github.samera2022.chinese_chess.common.model.Piece;
@@ -30,6 +32,7 @@ public class InfoSidePanel extends JPanel {
     private final JToggleButton localRedBtn = new JToggleButton("本地红方", true);
     private final JButton viewToggleBtn = new JButton("全局视角");
     private final JToggleButton aiToggleBtn = new JToggleButton("AI对战");
+    private final JComboBox<String> aiStrategyCombo = new JComboBox<>(new String[]{"MCTS", "Alpha-Beta"});
     private final JButton exportBtn = new JButton("导出残局");
     private final JButton importBtn = new JButton("导入残局");
 
@@ -119,7 +122,10 @@ public class InfoSidePanel extends JPanel {
             updateViewToggleText();
         });
         controls.add(viewToggleBtn);
-        controls.add(aiToggleBtn);
+        JPanel aiPanel = new JPanel(new BorderLayout(4, 0));
+        aiPanel.add(aiToggleBtn, BorderLayout.CENTER);
+        aiPanel.add(aiStrategyCombo, BorderLayout.EAST);
+        controls.add(aiPanel);
         controls.add(disconnectBtn);
         controls.add(exportBtn);
         controls.add(importBtn);
@@ -217,6 +223,8 @@ public class InfoSidePanel extends JPanel {
                 aiEnabler.setAIEnabled(aiToggleBtn.isSelected());
             }
         });
+        aiStrategyCombo.setToolTipText("AI 搜索策略：MCTS（蒙特卡洛树搜索）/ Alpha-Beta（迭代加深 PVS）");
+        aiStrategyCombo.addActionListener(e -> applyAIStrategy());
 
         installQualityTooltip();
         setupSideSync();
@@ -753,6 +761,17 @@ public class InfoSidePanel extends JPanel {
      */
     public void setAIEnabler(AIModeEnabler enabler) {
         this.aiEnabler = enabler;
+        applyAIStrategy();
+    }
+
+    /** 按下拉框的选择设置 AI 搜索策略 */
+    private void applyAIStrategy() {
+        if (aiEnabler == null) return;
+        if (aiStrategyCombo.getSelectedIndex() == 1) {
+            if (!(aiEnabler.getStrategy() instanceof AlphaBetaAI)) aiEnabler.setStrategy(new AlphaBetaAI());
+        } else if (!(aiEnabler.getStrategy() instanceof RuleAwareAI)) {
+            aiEnabler.setStrategy(AIModeEnabler.newMctsStrategy());
+        }
     }
 
     // 新增：清除选中的棋子
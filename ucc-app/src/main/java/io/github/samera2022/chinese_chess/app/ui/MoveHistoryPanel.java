@@ -27,6 +27,8 @@ public class MoveHistoryPanel extends JPanel implements SessionListener {
     private int currentStep = -1; // -1表示显示当前实际状态
     private boolean isInReplayMode = false;
     private StepChangeListener stepChangeListener;
+    /** 已显示的会话状态版本；版本未变时跳过重建文本 */
+    private long renderedVersion = -1;
 
     /**
      * 步数变化监听器接口
@@ -166,6 +168,9 @@ public class MoveHistoryPanel extends JPanel implements SessionListener {
      * 更新着法记录显示
      */
     private void updateMoveHistory() {
+        long version = session.getStateVersion();
+        if (version == renderedVersion) return;
+        renderedVersion = version;
         StringBuilder sb = new StringBuilder();
         List<HistoryItem> history = session.getCombinedHistory();
 
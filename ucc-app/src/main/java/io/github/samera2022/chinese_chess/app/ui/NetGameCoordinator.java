@@ -14,6 +14,7 @@ import java.awt.*;
 import java.awt.datatransfer.StringSelection;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
 
 /**
  * 网络对局协调器 - 网络会话生命周期管理、强制走子发送/接收、持方同步、棋盘布置模式、设置同步。
@@ -40,9 +41,31 @@ public class NetGameCoordinator {
     private javax.swing.Timer sendSettingsTimer;
 
     // rule change listener to collect diffs
-    private final GameRulesConfig.RuleChangeListener diffsCollector = (key, oldVal, newVal, source) -> {
+    private final GameRulesConfig.RuleChangeListener diffsCollector = new GameRulesConfig.RuleChangeListener() {
+        @Override
+        public void onRuleChanged(String key, Object oldVal, Object newVal, GameRulesConfig.ChangeSource source) {
+            if (collectDiff(key, newVal, source)) {
+                SwingUtilities.invokeLater(NetGameCoordinator.this::sendSettingsSnapshotToClient);
+            }
+        }
+
+        /** 一批变更合并为一次发送 */
+        @Override
+        public void onRulesChanged(List<GameRulesConfig.RuleChange> changes, long version) {
+            boolean collected = false;
+            for (GameRulesConfig.RuleChange c : changes) {
+                collected |= collectDiff(c.key, c.newValue, c.source);
+            }
+            if (collected) {
+                SwingUtilities.invokeLater(NetGameCoordinator.this::sendSettingsSnapshotToClient);
+            }
+        }
+    };
+
+    /** 记录一条需要同步给对端的本地规则变更；来自网络或一致性修正的变更不记录 */
+    private boolean collectDiff(String key, Object newVal, GameRulesConfig.ChangeSource source) {
         if (key == null || source == GameRulesConfig.ChangeSource.NETWORK
-                || source == GameRulesConfig.ChangeSource.INTERNAL_CONSISTENCY) return;
+                || source == GameRulesConfig.ChangeSource.INTERNAL_CONSISTENCY) return false;
         synchronized (pendingDiffsLock) {
             if (newVal instanceof Boolean) {
                 pendingDiffs.addProperty(key, (Boolean) newVal);
@@ -52,8 +75,8 @@ public class NetGameCoordinator {
                 pendingDiffs.addProperty(key, String.valueOf(newVal));
             }
         }
-        SwingUtilities.invokeLater(this::sendSettingsSnapshotToClient);
-    };
+        return true;
+    }
 
     public NetGameCoordinator(GameSession session, GameEngine engineForSync, NetModeController netController,
                               BoardPanel boardPanel, MoveHistoryPanel moveHistoryPanel,
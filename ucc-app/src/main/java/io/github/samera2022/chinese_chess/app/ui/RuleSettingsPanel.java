@@ -22,8 +22,17 @@ public class RuleSettingsPanel extends JPanel {
     private final Map<String, JTextField> registryNameToTextField = new HashMap<>();
     private GameRulesConfig config;
 
-    private final GameRulesConfig.RuleChangeListener configListener = (key, oldVal, newVal, source) -> {
-        SwingUtilities.invokeLater(this::refreshUI);
+    private final GameRulesConfig.RuleChangeListener configListener = new GameRulesConfig.RuleChangeListener() {
+        @Override
+        public void onRuleChanged(String key, Object oldVal, Object newVal, GameRulesConfig.ChangeSource source) {
+            SwingUtilities.invokeLater(RuleSettingsPanel.this::refreshUI);
+        }
+
+        /** 一批变更只刷新一次界面 */
+        @Override
+        public void onRulesChanged(List<GameRulesConfig.RuleChange> changes, long version) {
+            SwingUtilities.invokeLater(RuleSettingsPanel.this::refreshUI);
+        }
     };
 
     public RuleSettingsPanel() {
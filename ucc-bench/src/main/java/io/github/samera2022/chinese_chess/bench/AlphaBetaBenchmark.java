@@ -0,0 +1,53 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.ai.AlphaBetaAI;
+import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AlphaBetaAI#findBestMove} 在固定深度下的耗时（不设时间上限，每次搜索前清空置换表）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AlphaBetaBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int depth;
+
+    @Param({"opening", "middlegame"})
+    public String position;
+
+    private AlphaBetaAI ai;
+    private SimulationBoard board;
+
+    @Setup
+    public void setUp() {
+        GameRulesConfig rules = BenchPositions.variantRules("standard");
+        board = new SimulationBoard(BenchPositions.position(position, rules, Board.STANDARD_ROWS), rules);
+        ai = new AlphaBetaAI();
+    }
+
+    @Benchmark
+    public Move findBestMove() {
+        return ai.findBestMove(board, depth, 0);
+    }
+}
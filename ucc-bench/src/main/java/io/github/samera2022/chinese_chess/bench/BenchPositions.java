@@ -0,0 +1,104 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.Perft;
+import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.rules.CheckDetector;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import io.github.samera2022.chinese_chess.core.rules.MoveValidator;
+
+import java.util.Random;
+
+/**
+ * 基准测试共用的局面与规则组合。
+ *
+ * <p>中局局面由固定种子的随机对弈得到，保证不同版本之间测的是同一批局面，结果可以直接比较。</p>
+ */
+final class BenchPositions {
+    private BenchPositions() {}
+
+    static final long SEED = 20240601L;
+    static final int MIDDLEGAME_PLIES = 40;
+    private static final int MAX_SEARCH_GAMES = 2000;
+    private static final int MAX_SEARCH_PLIES = 200;
+
+    /** 棋盘拓扑对应的规则：standard / left_right（左右连通）/ top_bottom（上下连通，18 行） */
+    static GameRulesConfig topologyRules(String topology) {
+        switch (topology) {
+            case "standard":
+                return new GameRulesConfig();
+            case "left_right":
+                return Perft.rules("left_right_connected", "left_right_connected_horse", "left_right_connected_elephant");
+            case "top_bottom":
+                return Perft.rules("top_bottom_connected", "top_bottom_connected_horse", "top_bottom_connected_elephant");
+            default:
+                throw new IllegalArgumentException("unknown topology: " + topology);
+        }
+    }
+
+    static int topologyRows(String topology) {
+        return "top_bottom".equals(topology) ? Board.EXPANDED_ROWS : Board.STANDARD_ROWS;
+    }
+
+    /** 规则组合：standard 走标准生成快路径，extended 开启若干扩展规则走规则感知生成 */
+    static GameRulesConfig variantRules(String variant) {
+        switch (variant) {
+            case "standard":
+                return new GameRulesConfig();
+            case "extended":
+                return Perft.rules("no_river_limit", "pawn_can_retreat", "unblock_piece", "unblock_horse_leg",
+                        "allow_piece_stacking", "allow_carry_pieces_above");
+            default:
+                throw new IllegalArgumentException("unknown rule variant: " + variant);
+        }
+    }
+
+    /** opening 为开局，middlegame 为从开局以固定种子随机走 {@link #MIDDLEGAME_PLIES} 步后的局面 */
+    static Board position(String name, GameRulesConfig rules, int rows) {
+        switch (name) {
+            case "opening":
+                return new Board(rows);
+            case "middlegame":
+                return randomGame(rules, rows, MIDDLEGAME_PLIES, SEED);
+            default:
+                throw new IllegalArgumentException("unknown position: " + name);
+        }
+    }
+
+    /** 从开局以给定种子随机走至多 plies 步；无子可走或一方将帅被吃时提前停止 */
+    static Board randomGame(GameRulesConfig rules, int rows, int plies, long seed) {
+        SimulationBoard board = new SimulationBoard(new Board(rows), rules);
+        Random random = new Random(seed);
+        int[] moves = new int[PackedMove.BUFFER_SIZE];
+        for (int ply = 0; ply < plies; ply++) {
+            int n = board.generateLegalMoves(moves);
+            if (n == 0 || !board.simulateMove(moves[random.nextInt(n)])) break;
+            if (board.getRedKing() == null || board.getBlackKing() == null) break;
+        }
+        return Board.fromState(board.toState());
+    }
+
+    /**
+     * 随机对弈中第一个行棋方被将（mated 为 true 时要求被将死）的局面，依次尝试种子 SEED, SEED+1, ...
+     */
+    static Board checkPosition(GameRulesConfig rules, boolean mated) {
+        int[] moves = new int[PackedMove.BUFFER_SIZE];
+        for (int game = 0; game < MAX_SEARCH_GAMES; game++) {
+            SimulationBoard board = new SimulationBoard(new Board(), rules);
+            CheckDetector detector = new CheckDetector(board, new MoveValidator(board, rules));
+            Random random = new Random(SEED + game);
+            for (int ply = 0; ply < MAX_SEARCH_PLIES; ply++) {
+                int n = board.generateLegalMoves(moves);
+                if (n == 0 || !board.simulateMove(moves[random.nextInt(n)])) break;
+                if (board.getRedKing() == null || board.getBlackKing() == null) break;
+                boolean red = board.isRedTurn();
+                if (mated ? detector.isCheckmate(red) : detector.isInCheck(red)) {
+                    return Board.fromState(board.toState());
+                }
+            }
+        }
+        throw new IllegalStateException("no " + (mated ? "checkmate" : "check") + " position found in "
+                + MAX_SEARCH_GAMES + " random games");
+    }
+}
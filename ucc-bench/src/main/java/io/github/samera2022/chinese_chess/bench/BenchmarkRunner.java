@@ -0,0 +1,54 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 基准测试入口：接受全部 JMH 命令行参数，未指定结果格式时默认输出 JSON 到 {@value #DEFAULT_RESULT_FILE}，
+ * 便于在不同版本之间比对回归。
+ *
+ * <pre>
+ * java -jar ucc-bench/target/ucc-bench.jar                      # 全部基准
+ * java -jar ucc-bench/target/ucc-bench.jar MCTSBenchmark -rff mcts.json
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {}
+
+    public static final String DEFAULT_RESULT_FILE = "ucc-bench-results.json";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions cli;
+        try {
+            cli = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (cli.shouldHelp()) {
+            cli.showHelp();
+            return;
+        }
+        if (cli.shouldList()) {
+            new Runner(cli).list();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.common.model.BoardState;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 棋盘快照：{@link Board#toState()}、{@link Board#fromState(BoardState)} 与置换表键 {@link BoardState#toHash()}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardStateBenchmark {
+
+    @Param({"opening", "middlegame"})
+    public String position;
+
+    @Param({"standard", "top_bottom"})
+    public String topology;
+
+    private Board board;
+    private BoardState state;
+
+    @Setup
+    public void setUp() {
+        board = BenchPositions.position(position, BenchPositions.topologyRules(topology),
+                BenchPositions.topologyRows(topology));
+        state = board.toState();
+    }
+
+    @Benchmark
+    public long toHash() {
+        return state.toHash();
+    }
+
+    @Benchmark
+    public BoardState toState() {
+        return board.toState();
+    }
+
+    @Benchmark
+    public Board fromState() {
+        return Board.fromState(state);
+    }
+}
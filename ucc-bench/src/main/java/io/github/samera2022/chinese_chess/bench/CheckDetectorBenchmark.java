@@ -0,0 +1,62 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.rules.CheckDetector;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import io.github.samera2022.chinese_chess.core.rules.MoveValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CheckDetector#isCheckmate(boolean)}：未被将时只做一次将军判定；被将时逐个试探脱将着法，
+ * 被将死时需要试探全部候选，是最慢的情形
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckDetectorBenchmark {
+
+    @Param({"middlegame", "in_check", "checkmate"})
+    public String position;
+
+    private CheckDetector detector;
+    private boolean red;
+
+    @Setup
+    public void setUp() {
+        GameRulesConfig rules = BenchPositions.variantRules("standard");
+        Board board;
+        switch (position) {
+            case "in_check":
+                board = BenchPositions.checkPosition(rules, false);
+                break;
+            case "checkmate":
+                board = BenchPositions.checkPosition(rules, true);
+                break;
+            default:
+                board = BenchPositions.position(position, rules, Board.STANDARD_ROWS);
+                break;
+        }
+        detector = new CheckDetector(board, new MoveValidator(board, rules));
+        red = board.isRedTurn();
+    }
+
+    @Benchmark
+    public boolean isCheckmate() {
+        return detector.isCheckmate(red);
+    }
+}
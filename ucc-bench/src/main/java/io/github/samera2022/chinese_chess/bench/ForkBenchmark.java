@@ -0,0 +1,48 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SimulationBoard#fork()}：MCTS 每次模拟都要复制一次根局面
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForkBenchmark {
+
+    @Param({"standard", "top_bottom"})
+    public String topology;
+
+    private SimulationBoard board;
+
+    @Setup
+    public void setUp() {
+        GameRulesConfig rules = BenchPositions.topologyRules(topology);
+        Board position = BenchPositions.position("middlegame", rules, BenchPositions.topologyRows(topology));
+        board = new SimulationBoard(position, rules);
+    }
+
+    @Benchmark
+    public SimulationContext fork() {
+        return board.fork();
+    }
+}
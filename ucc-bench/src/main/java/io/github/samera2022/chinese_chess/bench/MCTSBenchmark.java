@@ -0,0 +1,64 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.ai.MCTSAgent;
+import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MCTSAgent#findBestMove} 在固定模拟次数下的耗时（不设时间上限，无神经网络，叶节点走启发式 Rollout）；
+ * threads 为树并行的搜索线程数，用于观察吞吐随核数的扩展
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MCTSBenchmark {
+
+    @Param({"100", "400", "1600"})
+    public int simulations;
+
+    @Param({"opening", "middlegame"})
+    public String position;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private MCTSAgent agent;
+    private SimulationBoard board;
+
+    @Setup
+    public void setUp() {
+        GameRulesConfig rules = BenchPositions.variantRules("standard");
+        board = new SimulationBoard(BenchPositions.position(position, rules, Board.STANDARD_ROWS), rules);
+        agent = new MCTSAgent();
+        agent.setThreadCount(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        agent.shutdown();
+    }
+
+    @Benchmark
+    public Move findBestMove() {
+        return agent.findBestMove(board, simulations, 0);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SimulationBoard#generateLegalMoves(int[])}：标准规则走候选快路径，扩展规则走规则感知生成
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+    @Param({"opening", "middlegame"})
+    public String position;
+
+    @Param({"standard", "extended"})
+    public String rules;
+
+    private SimulationBoard board;
+    private final int[] moves = new int[PackedMove.BUFFER_SIZE];
+
+    @Setup
+    public void setUp() {
+        GameRulesConfig config = BenchPositions.variantRules(rules);
+        board = new SimulationBoard(BenchPositions.position(position, config, Board.STANDARD_ROWS), config);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return board.generateLegalMoves(moves);
+    }
+}
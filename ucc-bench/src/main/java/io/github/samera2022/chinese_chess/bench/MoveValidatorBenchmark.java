@@ -0,0 +1,72 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.rules.MoveValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MoveValidator#isValidMove} 按棋子种类与棋盘拓扑分别计时。
+ * 每次调用以开局中该种类的第一枚红子为起点，校验棋盘上的全部目标格。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveValidatorBenchmark {
+
+    @Param({"KING", "ADVISOR", "ELEPHANT", "HORSE", "CHARIOT", "CANNON", "SOLDIER"})
+    public String piece;
+
+    @Param({"standard", "left_right", "top_bottom"})
+    public String topology;
+
+    private MoveValidator validator;
+    private int rows;
+    private int fromRow;
+    private int fromCol;
+
+    @Setup
+    public void setUp() {
+        rows = BenchPositions.topologyRows(topology);
+        Board board = new Board(rows);
+        validator = new MoveValidator(board, BenchPositions.topologyRules(topology));
+        Piece.Type type = Piece.Type.valueOf("RED_" + piece);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < Board.COLS; c++) {
+                Piece p = board.getPiece(r, c);
+                if (p != null && p.getType() == type) {
+                    fromRow = r;
+                    fromCol = c;
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("no " + type + " on the " + topology + " opening board");
+    }
+
+    @Benchmark
+    public int allTargets() {
+        int valid = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < Board.COLS; c++) {
+                if (validator.isValidMove(fromRow, fromCol, r, c)) valid++;
+            }
+        }
+        return valid;
+    }
+}
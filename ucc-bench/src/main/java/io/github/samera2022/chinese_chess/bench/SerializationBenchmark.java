@@ -0,0 +1,73 @@
+package io.github.samera2022.chinese_chess.bench;
+
+import com.google.gson.JsonObject;
+import io.github.samera2022.chinese_chess.api.io.GameStateSerializer;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
+import io.github.samera2022.chinese_chess.core.engine.GameEngine;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameStateSerializer#serialize}：存档与联机同步的整局序列化，开销随走子记录增长
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    /** 序列化前已走的步数 */
+    @Param({"0", "40", "160"})
+    public int plies;
+
+    private GameEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = new GameEngine(new GameRulesConfig());
+        Random random = new Random(BenchPositions.SEED);
+        int[] moves = new int[PackedMove.BUFFER_SIZE];
+        for (int ply = 0; ply < plies; ply++) {
+            SimulationContext sim = engine.newSimulation();
+            int n = sim.generateLegalMoves(moves);
+            if (n == 0) break;
+            int m = moves[random.nextInt(n)];
+            if (!engine.makeMove(PackedMove.fromRow(m), PackedMove.fromCol(m), PackedMove.toRow(m), PackedMove.toCol(m))) {
+                break;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public JsonObject serialize() {
+        return GameStateSerializer.serialize(engine);
+    }
+
+    /** 含转为 JSON 文本，即实际写入存档 / 发送到网络的完整开销 */
+    @Benchmark
+    public String serializeToString() {
+        return GameStateSerializer.serialize(engine).toString();
+    }
+}
@@ -20,6 +20,7 @@ public class Move implements HistoryItem {
     private int selectedStackIndex = -1; // 从堆栈中选择的棋子索引（-1表示无效或不从堆叠选择）
     private List<Piece> movedStack; // 移动时随之移动的堆栈中的其他棋子
     private boolean isForceMove = false; // 是否为强制走子
+    private Piece.Type promotionType; // 兵卒升变后的兵种（未升变为null）
 
     public Move(int fromRow, int fromCol, int toRow, int toCol, Piece piece, Piece capturedPiece) {
         this.fromRow = fromRow;
@@ -86,6 +87,9 @@ public class Move implements HistoryItem {
     public void setForceMove(boolean force) { this.isForceMove = force; }
     public boolean isForceMove() { return isForceMove; }
 
+    public void setPromotionType(Piece.Type promotionType) { this.promotionType = promotionType; }
+    public Piece.Type getPromotionType() { return promotionType; }
+
     @Override
     public String toString() {
         StringBuilder notation = new StringBuilder();
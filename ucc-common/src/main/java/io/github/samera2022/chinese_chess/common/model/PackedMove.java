@@ -0,0 +1,58 @@
+package io.github.samera2022.chinese_chess.common.model;
+
+/**
+ * 着法的 int 打包编码 - 供免分配的走法生成与搜索使用
+ *
+ * <p>位布局（低位在前）：</p>
+ * <pre>
+ *   0-4   fromRow
+ *   5-8   fromCol
+ *   9-13  toRow
+ *   14-17 toCol
+ *   18-22 selectedStackIndex + 1（0 表示移动顶层棋子）
+ *   23    FLAG_CAPTURE   目标格有被吃的棋子
+ *   24    FLAG_STACKING  目标格为己方棋子且按堆叠规则叠放
+ * </pre>
+ */
+public final class PackedMove {
+    /** 无效着法 */
+    public static final int NONE = -1;
+
+    public static final int FLAG_CAPTURE = 1 << 23;
+    public static final int FLAG_STACKING = 1 << 24;
+
+    /** 走法缓冲区的建议容量，足以容纳 18 行棋盘在全部扩展规则下的着法数 */
+    public static final int BUFFER_SIZE = 2048;
+
+    private PackedMove() {}
+
+    public static int of(int fromRow, int fromCol, int toRow, int toCol, int selectedStackIndex, int flags) {
+        return fromRow | (fromCol << 5) | (toRow << 9) | (toCol << 14)
+                | ((selectedStackIndex + 1) << 18) | flags;
+    }
+
+    public static int fromRow(int move) { return move & 0x1F; }
+    public static int fromCol(int move) { return (move >>> 5) & 0xF; }
+    public static int toRow(int move) { return (move >>> 9) & 0x1F; }
+    public static int toCol(int move) { return (move >>> 14) & 0xF; }
+
+    /** @return 堆叠选择索引，-1 表示移动顶层棋子 */
+    public static int selectedStackIndex(int move) { return ((move >>> 18) & 0x1F) - 1; }
+
+    public static boolean isCapture(int move) { return (move & FLAG_CAPTURE) != 0; }
+    public static boolean isStacking(int move) { return (move & FLAG_STACKING) != 0; }
+
+    /** 去掉标志位后的着法本体，用于判断两步着法是否相同 */
+    public static int withoutFlags(int move) { return move & (FLAG_CAPTURE - 1); }
+
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(').append(fromRow(move)).append(',').append(fromCol(move)).append(") -> (")
+                .append(toRow(move)).append(',').append(toCol(move)).append(')');
+        int si = selectedStackIndex(move);
+        if (si >= 0) sb.append(" [堆叠选择:").append(si + 1).append(']');
+        if (isStacking(move)) sb.append(" [堆叠]");
+        else if (isCapture(move)) sb.append(" [吃]");
+        return sb.toString();
+    }
+}
@@ -5,6 +5,7 @@ import io.github.samera2022.chinese_chess.common.model.HistoryItem;
 import io.github.samera2022.chinese_chess.common.model.Move;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.common.model.RuleChangeRecord;
+import java.util.BitSet;
 import java.util.List;
 
 public interface GameSession {
@@ -32,9 +33,15 @@ public interface GameSession {
 
     // === 新增 SPI 方法 ===
 
-    /** 获取只读棋盘 */
+    /** 获取只读棋盘：最近发布的不可变局面快照，读取无需加锁，不随之后的走子变化 */
     ReadonlyBoard getBoard();
 
+    /** 状态版本号，局面、历史或对局状态每次变化后递增；未变化时读取方可跳过重复工作 */
+    long getStateVersion();
+
+    /** 以当前局面（含本局局面历史）创建供 AI 搜索的模拟上下文 */
+    SimulationContext newSimulation();
+
     /** 回放导航：将棋盘重建到指定步数 */
     void rebuildBoardToStep(int step);
 
@@ -50,6 +57,12 @@ public interface GameSession {
     /** 添加规则变更记录 */
     void addRuleChangeToHistory(RuleChangeRecord record);
 
+    /**
+     * (row, col) 处棋子的全部合法目标格，第 row * getBoardCols() + col 位为 1；
+     * selectedStackIndex 为堆叠层号，-1 表示顶层。非当前行棋方的棋子或对局已结束时为空
+     */
+    BitSet getLegalDestinations(int row, int col, int selectedStackIndex);
+
     /** 判断指定位置的兵卒是否需要晋升 */
     boolean needsPromotion(int row, int col);
 
@@ -14,4 +14,7 @@ public interface ReadonlyBoard {
     Piece getRedKing();
     Piece getBlackKing();
     boolean isValid(int row, int col);
+
+    /** 当前局面的 64 位 Zobrist 键（含行棋方），可直接用作置换表键 */
+    long getZobristKey();
 }
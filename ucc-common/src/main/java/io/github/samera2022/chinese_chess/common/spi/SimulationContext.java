@@ -1,6 +1,8 @@
 package io.github.samera2022.chinese_chess.common.spi;
 
+import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
 import java.util.List;
 
 public interface SimulationContext {
@@ -13,4 +15,49 @@ public interface SimulationContext {
     SimulationContext fork();
     int evaluate();
     List<Move> generateLegalMoves();
+
+    /**
+     * 免分配的走法生成：将当前行棋方的全部合法着法以 {@link PackedMove} 编码写入调用方复用的缓冲区。
+     * 着法顺序与 {@link #generateLegalMoves()} 一致；缓冲区写满时截断。
+     *
+     * @return 写入的着法数
+     */
+    int generateLegalMoves(int[] buffer);
+
+    /** 执行一步 {@link PackedMove} 编码的着法 */
+    boolean simulateMove(int packedMove);
+
+    /** 当前模拟局面的 Zobrist 键，免去为查表构造完整 BoardState */
+    default long getZobristKey() {
+        return getBoard().getZobristKey();
+    }
+
+    /** 当前局面在对局历史与模拟路径上出现的次数（含当前局面）；不记录历史的实现返回 1 */
+    default int getRepetitionCount() {
+        return 1;
+    }
+
+    /**
+     * 重复局面裁决：当前局面第三次出现时返回 {@link GameStatus#DRAW}，或单方长将时判该方负
+     * （{@link GameStatus#RED_CHECKMATE} 表示红方负）；未构成重复返回 {@link GameStatus#RUNNING}。
+     * MCTS 与自对弈可据此提前截断重复的着法序列
+     */
+    default GameStatus getRepetitionStatus() {
+        return GameStatus.RUNNING;
+    }
+
+    /** 当前行棋方是否被将；无法判定的实现返回 false */
+    default boolean isInCheck() {
+        return false;
+    }
+
+    /**
+     * 空着：只交换行棋方，不移动棋子，由 {@link #simulateUndo()} 撤销。供 Alpha-Beta 的空着裁剪使用，
+     * 不出现在 {@link #getSimulatedMoves()} 中
+     *
+     * @return 不支持空着的实现返回 false，此时局面不变
+     */
+    default boolean simulateNullMove() {
+        return false;
+    }
 }
@@ -2,7 +2,9 @@ package io.github.samera2022.chinese_chess.core.engine;
 
 import io.github.samera2022.chinese_chess.common.model.BoardState;
 import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
 import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
+import io.github.samera2022.chinese_chess.core.rules.RulesConfigProvider;
 
 import java.util.*;
 
@@ -15,14 +17,47 @@ public class Board implements ReadonlyBoard {
     public static final int COLS = 9;
     public static final int STANDARD_ROWS = 10;
     public static final int EXPANDED_ROWS = 18;
+    /** 棋子索引位置编码：低 24 位为一方索引中的位置，高位为将帅的登记次序 */
+    private static final int KING_SHIFT = 24;
+    private static final int POSITION_MASK = (1 << KING_SHIFT) - 1;
 
     private final int rows;
-    private Piece[][] board;
-    private List<Piece> redPieces;
-    private List<Piece> blackPieces;
-    private final Map<String, Deque<Piece>> stacks = new HashMap<>();
+    private final int squares;
+    /** 每格预留的堆叠槽位数，槽位下标 = 格子下标 * stackSlots + 层号（0 为底层） */
+    private int stackSlots;
+    /** 各格堆叠高度，格子下标 = row * COLS + col */
+    private byte[] heights;
+    /** 各槽位的棋子编码（见 {@link PieceCode}） */
+    private byte[] codes;
+    /** 各槽位的棋子对象，与 codes 一一对应 */
+    private Piece[] slots;
+    /** 行占用位掩码：第 col 位表示 (row, col) 非空 */
+    private final int[] rowMasks;
+    /** 列占用位掩码：第 row 位表示 (row, col) 非空 */
+    private final int[] colMasks;
+    /**
+     * 两方棋子索引（下标 0 红、1 黑）：各自存放所属棋子的槽位，删除时以末位元素填空，增删均为 O(1)。
+     * 索引顺序即 {@link #getRedPieces()} / {@link #getBlackPieces()} 视图的迭代顺序
+     */
+    private int[][] sideSlots;
+    private final int[] sideSizes = new int[2];
+    /** 槽位 → 该槽棋子在所属一方索引中的位置 */
+    private int[] slotPositions;
+    /**
+     * 各方将帅按登记先后排列（多将变体下 {@link #getRedKing()} 取最早登记的一个），
+     * 数量极少，增删时平移即可
+     */
+    private final Piece[][] kings = {new Piece[2], new Piece[2]};
+    private final int[] kingCounts = new int[2];
+    private final List<Piece> redView = new SideView(0);
+    private final List<Piece> blackView = new SideView(1);
     /** true = 红方回合，false = 黑方回合 */
     volatile boolean turn = true;
+    /** 增量维护的 Zobrist 局面键（棋子 + 层号 + 行棋方） */
+    private long zobristKey;
+    /** 估值表及按其增量维护的局面分（红方视角，各格顶层棋子之和） */
+    private EvalTable evalTable;
+    private int evalScore;
 
     public Board() {
         this(STANDARD_ROWS, true, false);
@@ -33,10 +68,7 @@ public class Board implements ReadonlyBoard {
     }
 
     private Board(int rows, boolean initialize, boolean symmetric) {
-        this.rows = rows;
-        this.board = new Piece[rows][COLS];
-        this.redPieces = new ArrayList<>();
-        this.blackPieces = new ArrayList<>();
+        this(rows, false);
         if (initialize) {
             initializeBoard(symmetric);
         }
@@ -45,9 +77,60 @@ public class Board implements ReadonlyBoard {
     // Copy constructor for deepCopy / SimulationBoard
     Board(int rows, boolean unused) {
         this.rows = rows;
-        this.board = new Piece[rows][COLS];
-        this.redPieces = new ArrayList<>();
-        this.blackPieces = new ArrayList<>();
+        this.squares = rows * COLS;
+        this.stackSlots = defaultStackSlots();
+        this.heights = new byte[squares];
+        this.codes = new byte[squares * stackSlots];
+        this.slots = new Piece[squares * stackSlots];
+        this.rowMasks = new int[rows];
+        this.colMasks = new int[COLS];
+        this.sideSlots = new int[2][squares * stackSlots];
+        this.slotPositions = new int[squares * stackSlots];
+        this.zobristKey = Zobrist.empty(rows) ^ Zobrist.RED_TO_MOVE;
+        this.evalTable = EvalTable.materialOnly(rows);
+    }
+
+    /**
+     * 扁平复制构造（供 {@link SimulationBoard} 使用）：格子数组、棋子索引、占用掩码与 Zobrist 键整体复制，
+     * 仅为每个槽位新建一个棋子对象，不经过 pushToStack
+     */
+    Board(Board source) {
+        this.rows = source.rows;
+        this.squares = source.squares;
+        this.stackSlots = source.stackSlots;
+        this.heights = source.heights.clone();
+        this.codes = source.codes.clone();
+        this.slots = new Piece[source.slots.length];
+        this.rowMasks = source.rowMasks.clone();
+        this.colMasks = source.colMasks.clone();
+        this.sideSlots = new int[][]{source.sideSlots[0].clone(), source.sideSlots[1].clone()};
+        this.slotPositions = source.slotPositions.clone();
+        System.arraycopy(source.sideSizes, 0, sideSizes, 0, 2);
+        for (int s = 0; s < 2; s++) {
+            kings[s] = new Piece[source.kings[s].length];
+        }
+        for (int sq = 0; sq < squares; sq++) {
+            int h = heights[sq];
+            int base = sq * stackSlots;
+            for (int i = 0; i < h; i++) {
+                Piece p = new Piece(PieceCode.type(codes[base + i]), sq / COLS, sq % COLS);
+                slots[base + i] = p;
+                // 将帅按格子升序、由底到顶登记，与逐格 pushToStack 重建的次序一致
+                if (isKing(p)) kings[side(p)][kingCounts[side(p)]++] = p;
+            }
+        }
+        this.turn = source.turn;
+        this.zobristKey = source.zobristKey;
+        this.evalTable = source.evalTable;
+        this.evalScore = source.evalScore;
+    }
+
+    /**
+     * 槽位数按当前 max_stacking_count 预留；导入或携带走子超出时由 {@link #ensureStackSlots(int)} 扩容。
+     */
+    private static int defaultStackSlots() {
+        int max = RulesConfigProvider.get().getInt(RuleRegistry.MAX_STACKING_COUNT.registryName);
+        return Math.max(1, Math.min(max, Byte.MAX_VALUE));
     }
 
     private void initializeBoard() {
@@ -55,14 +138,7 @@ public class Board implements ReadonlyBoard {
     }
 
     private void initializeBoard(boolean symmetric) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < COLS; j++) {
-                board[i][j] = null;
-            }
-        }
-        redPieces.clear();
-        blackPieces.clear();
-        stacks.clear();
+        clearBoard();
 
         if (symmetric) {
             initExpandedSymmetric();
@@ -151,26 +227,218 @@ public class Board implements ReadonlyBoard {
         for (int c = 0; c < COLS; c += 2) addPiece(16, c, Piece.Type.RED_SOLDIER);
     }
 
-    private String key(int r, int c) {
-        return r + "," + c;
+    /** 格子下标：row * COLS + col */
+    public static int square(int row, int col) {
+        return row * COLS + col;
+    }
+
+    /** 指定格子的堆叠高度（调用方保证下标合法） */
+    public int heightAt(int sq) {
+        return heights[sq];
+    }
+
+    /** 指定格子顶层棋子的编码，空格返回 {@link PieceCode#EMPTY}（调用方保证下标合法） */
+    public int topCodeAt(int sq) {
+        int h = heights[sq];
+        return h == 0 ? PieceCode.EMPTY : codes[sq * stackSlots + h - 1];
+    }
+
+    /** 指定格子第 level 层（0 为底层）棋子的编码（调用方保证下标合法） */
+    public int codeAt(int sq, int level) {
+        return codes[sq * stackSlots + level];
+    }
+
+    /** 第 row 行的占用位掩码，第 col 位为 1 表示该格非空（调用方保证下标合法） */
+    public int rowMask(int row) {
+        return rowMasks[row];
+    }
+
+    /** 第 col 列的占用位掩码，第 row 位为 1 表示该格非空（调用方保证下标合法） */
+    public int colMask(int col) {
+        return colMasks[col];
+    }
+
+    /** 按格子当前高度同步行列占用位，高度在空与非空之间变化后调用 */
+    private void updateOccupancy(int sq) {
+        int row = sq / COLS, col = sq % COLS;
+        if (heights[sq] > 0) {
+            rowMasks[row] |= 1 << col;
+            colMasks[col] |= 1 << row;
+        } else {
+            rowMasks[row] &= ~(1 << col);
+            colMasks[col] &= ~(1 << row);
+        }
+    }
+
+    /** 格子顶层由 oldTop 变为当前顶层后，按估值表修正局面分 */
+    private void updateEval(int sq, int oldTop) {
+        evalScore += evalTable.value(topCodeAt(sq), sq) - evalTable.value(oldTop, sq);
+    }
+
+    /** 增量维护的局面分（红方视角，红正黑负），由当前估值表对各格顶层棋子求和，O(1) 读取 */
+    public int getEvalScore() {
+        return evalScore;
+    }
+
+    public EvalTable getEvalTable() {
+        return evalTable;
+    }
+
+    /** 更换估值表（如启用位置分）并重新求和一次，此后仍按新表增量维护 */
+    public void setEvalTable(EvalTable table) {
+        if (table.getRows() != rows) {
+            throw new IllegalArgumentException("eval table rows " + table.getRows() + " != board rows " + rows);
+        }
+        evalTable = table;
+        evalScore = computeEvalScore();
+    }
+
+    /** 逐格重新求和的局面分，用于更换估值表及断言核对 */
+    int computeEvalScore() {
+        int score = 0;
+        for (int sq = 0; sq < squares; sq++) {
+            score += evalTable.value(topCodeAt(sq), sq);
+        }
+        return score;
+    }
+
+    private void ensureStackSlots(int needed) {
+        if (needed <= stackSlots) return;
+        int newSlots = Math.max(needed, stackSlots * 2);
+        byte[] newCodes = new byte[squares * newSlots];
+        Piece[] newPieces = new Piece[squares * newSlots];
+        for (int sq = 0; sq < squares; sq++) {
+            System.arraycopy(codes, sq * stackSlots, newCodes, sq * newSlots, heights[sq]);
+            System.arraycopy(slots, sq * stackSlots, newPieces, sq * newSlots, heights[sq]);
+        }
+        // 槽位编号随每格槽数改变，按原顺序重映射两方索引
+        int[] newPositions = new int[squares * newSlots];
+        for (int s = 0; s < 2; s++) {
+            int[] list = Arrays.copyOf(sideSlots[s], squares * newSlots);
+            for (int i = 0; i < sideSizes[s]; i++) {
+                int slot = list[i];
+                list[i] = (slot / stackSlots) * newSlots + slot % stackSlots;
+                newPositions[list[i]] = i;
+            }
+            sideSlots[s] = list;
+        }
+        codes = newCodes;
+        slots = newPieces;
+        slotPositions = newPositions;
+        stackSlots = newSlots;
+    }
+
+    private static int side(Piece piece) {
+        return piece.isRed() ? 0 : 1;
+    }
+
+    private static boolean isKing(Piece piece) {
+        return piece.getType() == Piece.Type.RED_KING || piece.getType() == Piece.Type.BLACK_KING;
+    }
+
+    /**
+     * 将 slot 中的棋子登记到所属一方索引。位置编码为负时追加到末尾；
+     * 否则按 {@link #unindex} 返回的编码原位放回（原占位者移到末尾），恰为其逆操作
+     */
+    private void index(int slot, int token) {
+        Piece p = slots[slot];
+        int s = side(p);
+        int n = sideSizes[s];
+        int[] list = sideSlots[s];
+        int position = token < 0 ? n : Math.min(token & POSITION_MASK, n);
+        if (position < n) {
+            int displaced = list[position];
+            list[n] = displaced;
+            slotPositions[displaced] = n;
+        }
+        list[position] = slot;
+        slotPositions[slot] = position;
+        sideSizes[s] = n + 1;
+        if (isKing(p)) {
+            int count = kingCounts[s];
+            int k = token < 0 ? count : Math.min(token >>> KING_SHIFT, count);
+            Piece[] order = kings[s];
+            if (count == order.length) order = kings[s] = Arrays.copyOf(order, count * 2);
+            System.arraycopy(order, k, order, k + 1, count - k);
+            order[k] = p;
+            kingCounts[s] = count + 1;
+        }
+    }
+
+    /**
+     * 将 slot 中的棋子移出所属一方索引（末位元素填空）
+     *
+     * @return 位置编码：低位为索引位置，将帅另在高位记录其登记次序
+     */
+    private int unindex(int slot) {
+        Piece p = slots[slot];
+        int s = side(p);
+        int[] list = sideSlots[s];
+        int position = slotPositions[slot];
+        int last = --sideSizes[s];
+        if (position != last) {
+            int moved = list[last];
+            list[position] = moved;
+            slotPositions[moved] = position;
+        }
+        if (!isKing(p)) return position;
+        Piece[] order = kings[s];
+        int count = kingCounts[s];
+        int k = 0;
+        while (order[k] != p) k++;
+        System.arraycopy(order, k + 1, order, k, count - k - 1);
+        order[count - 1] = null;
+        kingCounts[s] = count - 1;
+        return position | (k << KING_SHIFT);
+    }
+
+    /** 堆叠内棋子换层后同步其索引中的槽位 */
+    private void relocate(int oldSlot, int newSlot) {
+        int position = slotPositions[oldSlot];
+        slotPositions[newSlot] = position;
+        sideSlots[side(slots[oldSlot])][position] = newSlot;
     }
 
-    private Deque<Piece> stackOf(int r, int c) {
-        return stacks.computeIfAbsent(key(r, c), k -> new ArrayDeque<>());
+    private Piece king(int s) {
+        return kingCounts[s] == 0 ? null : kings[s][0];
+    }
+
+    /** 某方棋子的只读实时视图，按索引顺序迭代，不复制 */
+    private final class SideView extends AbstractList<Piece> implements RandomAccess {
+        private final int side;
+
+        SideView(int side) {
+            this.side = side;
+        }
+
+        @Override
+        public Piece get(int index) {
+            if (index < 0 || index >= sideSizes[side]) throw new IndexOutOfBoundsException("Index: " + index);
+            return slots[sideSlots[side][index]];
+        }
+
+        @Override
+        public int size() {
+            return sideSizes[side];
+        }
     }
 
     @Override
     public List<Piece> getStack(int row, int col) {
         if (!isValid(row, col)) return Collections.emptyList();
-        Deque<Piece> dq = stacks.get(key(row, col));
-        return dq == null ? Collections.emptyList() : new ArrayList<>(dq);
+        int sq = square(row, col);
+        int h = heights[sq];
+        if (h == 0) return Collections.emptyList();
+        int base = sq * stackSlots;
+        List<Piece> list = new ArrayList<>(h);
+        for (int i = 0; i < h; i++) list.add(slots[base + i]);
+        return list;
     }
 
     @Override
     public int getStackSize(int row, int col) {
         if (!isValid(row, col)) return 0;
-        Deque<Piece> dq = stacks.get(key(row, col));
-        return dq == null ? 0 : dq.size();
+        return heights[square(row, col)];
     }
 
     private void addPiece(int row, int col, Piece.Type type) {
@@ -181,8 +449,9 @@ public class Board implements ReadonlyBoard {
     @Override
     public Piece getPiece(int row, int col) {
         if (!isValid(row, col)) return null;
-        Deque<Piece> dq = stacks.get(key(row, col));
-        return dq == null || dq.isEmpty() ? null : dq.peekLast();
+        int sq = square(row, col);
+        int h = heights[sq];
+        return h == 0 ? null : slots[sq * stackSlots + h - 1];
     }
 
     public void setPiece(int row, int col, Piece piece) {
@@ -200,75 +469,182 @@ public class Board implements ReadonlyBoard {
 
     public void pushToStack(int row, int col, Piece piece) {
         if (!isValid(row, col) || piece == null) return;
-        piece.move(row, col);
-        Deque<Piece> dq = stackOf(row, col);
-        dq.addLast(piece);
-        board[row][col] = dq.peekLast();
-        if (piece.isRed()) {
-            if (!redPieces.contains(piece)) redPieces.add(piece);
-        } else {
-            if (!blackPieces.contains(piece)) blackPieces.add(piece);
-        }
+        int sq = square(row, col);
+        insertSlot(sq, heights[sq], piece, -1);
     }
 
     public Piece popTop(int row, int col) {
         if (!isValid(row, col)) return null;
-        Deque<Piece> dq = stacks.get(key(row, col));
-        if (dq == null || dq.isEmpty()) return null;
-        Piece p = dq.removeLast();
-        p.move(-1, -1);
-        if (p.isRed()) redPieces.remove(p);
-        else blackPieces.remove(p);
-        board[row][col] = dq.peekLast();
-        if (dq.isEmpty()) stacks.remove(key(row, col));
+        int sq = square(row, col);
+        int h = heights[sq];
+        if (h == 0) return null;
+        Piece p = slots[sq * stackSlots + h - 1];
+        removeSlot(sq, h - 1);
         return p;
     }
 
     public Piece removeFromStack(int row, int col, int index) {
         if (!isValid(row, col)) return null;
-        Deque<Piece> dq = stacks.get(key(row, col));
-        if (dq == null || dq.isEmpty() || index < 0 || index >= dq.size()) return null;
-        List<Piece> list = new ArrayList<>(dq);
-        Piece removed = list.remove(index);
-        removed.move(-1, -1);
-        if (removed.isRed()) redPieces.remove(removed);
-        else blackPieces.remove(removed);
-        dq.clear();
-        dq.addAll(list);
-        board[row][col] = dq.peekLast();
-        if (dq.isEmpty()) stacks.remove(key(row, col));
+        int sq = square(row, col);
+        int h = heights[sq];
+        if (h == 0 || index < 0 || index >= h) return null;
+        Piece removed = slots[sq * stackSlots + index];
+        removeSlot(sq, index);
         return removed;
     }
 
     public void insertToStack(int row, int col, int index, Piece piece) {
         if (!isValid(row, col) || piece == null) return;
-        piece.move(row, col);
-        Deque<Piece> dq = stackOf(row, col);
+        int sq = square(row, col);
+        int h = heights[sq];
         if (index < 0) index = 0;
-        if (index > dq.size()) index = dq.size();
-        List<Piece> list = new ArrayList<>(dq);
-        list.add(index, piece);
-        if (piece.isRed()) {
-            if (!redPieces.contains(piece)) redPieces.add(piece);
-        } else {
-            if (!blackPieces.contains(piece)) blackPieces.add(piece);
+        if (index > h) index = h;
+        insertSlot(sq, index, piece, -1);
+    }
+
+    /**
+     * 在 sq 格第 index 层插入棋子，上方各层上移；同步维护编码、高度、棋子索引、占用位、局面分与 Zobrist 键。
+     * position 为 {@link #unindex} 返回的位置编码，负数表示追加
+     */
+    private void insertSlot(int sq, int index, Piece piece, int position) {
+        piece.move(sq / COLS, sq % COLS);
+        int h = heights[sq];
+        int oldTop = topCodeAt(sq);
+        ensureStackSlots(h + 1);
+        int base = sq * stackSlots;
+        for (int i = h - 1; i >= index; i--) {
+            zobristKey ^= Zobrist.piece(codes[base + i], sq, i) ^ Zobrist.piece(codes[base + i], sq, i + 1);
+            relocate(base + i, base + i + 1);
         }
-        dq.clear();
-        dq.addAll(list);
-        board[row][col] = dq.peekLast();
+        System.arraycopy(slots, base + index, slots, base + index + 1, h - index);
+        System.arraycopy(codes, base + index, codes, base + index + 1, h - index);
+        int code = PieceCode.of(piece.getType());
+        slots[base + index] = piece;
+        codes[base + index] = (byte) code;
+        heights[sq] = (byte) (h + 1);
+        index(base + index, position);
+        if (h == 0) updateOccupancy(sq);
+        zobristKey ^= Zobrist.piece(code, sq, index);
+        if (index == h) updateEval(sq, oldTop);
+    }
+
+    /**
+     * 取下 sq 格第 index 层的棋子，上方各层下移；同步维护编码、高度、棋子索引、占用位、局面分与 Zobrist 键。
+     * 取下的棋子坐标置为 (-1, -1)
+     *
+     * @return 棋子在所属一方索引中的位置编码
+     */
+    private int removeSlot(int sq, int index) {
+        int h = heights[sq];
+        int oldTop = topCodeAt(sq);
+        int base = sq * stackSlots;
+        Piece removed = slots[base + index];
+        int position = unindex(base + index);
+        zobristKey ^= Zobrist.piece(codes[base + index], sq, index);
+        for (int i = index + 1; i < h; i++) {
+            zobristKey ^= Zobrist.piece(codes[base + i], sq, i) ^ Zobrist.piece(codes[base + i], sq, i - 1);
+            relocate(base + i, base + i - 1);
+        }
+        System.arraycopy(slots, base + index + 1, slots, base + index, h - index - 1);
+        System.arraycopy(codes, base + index + 1, codes, base + index, h - index - 1);
+        slots[base + h - 1] = null;
+        codes[base + h - 1] = PieceCode.EMPTY;
+        heights[sq] = (byte) (h - 1);
+        if (h == 1) updateOccupancy(sq);
+        if (index == h - 1) updateEval(sq, oldTop);
+        removed.move(-1, -1);
+        return position;
+    }
+
+    /** sq 格第 level 层的棋子对象（调用方保证下标合法） */
+    Piece pieceAt(int sq, int level) {
+        return slots[sq * stackSlots + level];
+    }
+
+    /**
+     * 可逆的原始取子（供撤销日志使用）：取下 sq 格第 level 层的棋子
+     *
+     * @return 棋子在所属一方索引中的位置编码，撤销时交给 {@link #attach} 原位放回
+     */
+    int detach(int sq, int level) {
+        return removeSlot(sq, level);
+    }
+
+    /**
+     * 可逆的原始落子：将棋子插入 sq 格第 level 层，并按位置编码 position 放回所属一方索引（负数表示追加），
+     * 与 {@link #detach} 互为逆操作
+     */
+    void attach(int sq, int level, Piece piece, int position) {
+        insertSlot(sq, level, piece, position);
     }
 
     public void clearStack(int row, int col) {
         if (!isValid(row, col)) return;
-        Deque<Piece> dq = stacks.remove(key(row, col));
-        if (dq != null) {
-            for (Piece p : dq) {
-                p.move(-1, -1);
-                if (p.isRed()) redPieces.remove(p);
-                else blackPieces.remove(p);
+        int sq = square(row, col);
+        for (int level = heights[sq] - 1; level >= 0; level--) {
+            removeSlot(sq, level);
+        }
+    }
+
+    /**
+     * 试探走子的撤销记录 - 由 {@link #probeMove} 填写、{@link #undoProbe} 消费，可反复复用以免分配
+     */
+    public static final class Probe {
+        private int from;
+        private int to;
+        private Piece moved;
+        private int movedIndex;
+        private Piece[] captured = new Piece[4];
+        private int[] capturedIndex = new int[4];
+        private int capturedCount;
+
+        private void ensureCapacity(int n) {
+            if (n > captured.length) {
+                captured = Arrays.copyOf(captured, Math.max(n, captured.length * 2));
+                capturedIndex = Arrays.copyOf(capturedIndex, captured.length);
             }
         }
-        board[row][col] = null;
+    }
+
+    /**
+     * 原地试探走子：将 from 格顶层棋子移到 to 格，to 格原有堆叠整体移除。
+     * 与 {@link #undoProbe} 成对调用后，棋盘（含棋子列表顺序、棋子坐标与 Zobrist 键）完全复原。
+     *
+     * @return from 格为空时返回 false，此时无需撤销
+     */
+    public boolean probeMove(int fromRow, int fromCol, int toRow, int toCol, Probe probe) {
+        int from = square(fromRow, fromCol), to = square(toRow, toCol);
+        int h = heights[from];
+        if (h == 0) return false;
+        probe.from = from;
+        probe.to = to;
+        probe.moved = slots[from * stackSlots + h - 1];
+        probe.movedIndex = detach(from, h - 1);
+
+        // 自顶向下移除目标格堆叠
+        int th = heights[to];
+        probe.ensureCapacity(th);
+        probe.capturedCount = th;
+        for (int i = 0; i < th; i++) {
+            int level = th - 1 - i;
+            probe.captured[i] = slots[to * stackSlots + level];
+            probe.capturedIndex[i] = detach(to, level);
+        }
+
+        attach(to, 0, probe.moved, -1);
+        return true;
+    }
+
+    /** 撤销最近一次 {@link #probeMove} */
+    public void undoProbe(Probe probe) {
+        detach(probe.to, 0);
+        // 按移除的相反顺序放回，恢复各层与索引顺序
+        for (int i = probe.capturedCount - 1; i >= 0; i--) {
+            attach(probe.to, probe.capturedCount - 1 - i, probe.captured[i], probe.capturedIndex[i]);
+            probe.captured[i] = null;
+        }
+        attach(probe.from, heights[probe.from], probe.moved, probe.movedIndex);
+        probe.moved = null;
     }
 
     @Override
@@ -276,18 +652,27 @@ public class Board implements ReadonlyBoard {
     @Override
     public int getCols() { return COLS; }
 
+    /** 红方棋子的只读实时视图（随棋盘变化），迭代无需复制；需要快照时由调用方自行复制 */
     @Override
-    public List<Piece> getRedPieces() { return new ArrayList<>(redPieces); }
+    public List<Piece> getRedPieces() { return redView; }
+    /** 黑方棋子的只读实时视图（随棋盘变化），迭代无需复制；需要快照时由调用方自行复制 */
     @Override
-    public List<Piece> getBlackPieces() { return new ArrayList<>(blackPieces); }
+    public List<Piece> getBlackPieces() { return blackView; }
 
+    /** O(1)：直接返回登记的将帅；同方存在多个时取最早登记的一个 */
     @Override
     public Piece getRedKing() {
-        return redPieces.stream().filter(p -> p.getType() == Piece.Type.RED_KING).findFirst().orElse(null);
+        return king(0);
     }
     @Override
     public Piece getBlackKing() {
-        return blackPieces.stream().filter(p -> p.getType() == Piece.Type.BLACK_KING).findFirst().orElse(null);
+        return king(1);
+    }
+
+    /** 某方将帅所在格子下标，无将帅时返回 -1 */
+    public int kingSquare(boolean red) {
+        Piece k = king(red ? 0 : 1);
+        return k == null ? -1 : square(k.getRow(), k.getCol());
     }
 
     public void reset() { initializeBoard(); }
@@ -295,12 +680,17 @@ public class Board implements ReadonlyBoard {
     public void resetSymmetric() { initializeBoard(true); }
 
     public void clearBoard() {
-        for (int i = 0; i < rows; i++)
-            for (int j = 0; j < COLS; j++)
-                board[i][j] = null;
-        redPieces.clear();
-        blackPieces.clear();
-        stacks.clear();
+        Arrays.fill(heights, (byte) 0);
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(colMasks, 0);
+        evalScore = 0;
+        Arrays.fill(codes, (byte) PieceCode.EMPTY);
+        Arrays.fill(slots, null);
+        Arrays.fill(sideSizes, 0);
+        Arrays.fill(kingCounts, 0);
+        Arrays.fill(kings[0], null);
+        Arrays.fill(kings[1], null);
+        zobristKey = Zobrist.empty(rows) ^ (turn ? Zobrist.RED_TO_MOVE : 0L);
     }
 
     public Board deepCopy() {
@@ -309,6 +699,23 @@ public class Board implements ReadonlyBoard {
     }
 
 
+    /**
+     * 就地载入 source 的局面（全部堆叠与行棋方），每个棋子新建对象；供复盘检查点恢复使用
+     */
+    void loadFrom(Board source) {
+        if (source.rows != rows) {
+            throw new IllegalArgumentException("board rows mismatch: " + source.rows + " != " + rows);
+        }
+        clearBoard();
+        for (int sq = 0; sq < squares; sq++) {
+            int base = sq * source.stackSlots;
+            for (int level = 0; level < source.heights[sq]; level++) {
+                insertSlot(sq, level, new Piece(PieceCode.type(source.codes[base + level]), sq / COLS, sq % COLS), -1);
+            }
+        }
+        setTurn(source.turn);
+    }
+
     public void putPieceFresh(int row, int col, Piece piece) {
         if (!isValid(row, col)) return;
         popTop(row, col);
@@ -320,7 +727,7 @@ public class Board implements ReadonlyBoard {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < COLS; j++) {
-                Piece piece = board[i][j];
+                Piece piece = getPiece(i, j);
                 sb.append(piece != null ? piece.toString() : ".").append(" ");
             }
             sb.append("\n");
@@ -338,23 +745,15 @@ public class Board implements ReadonlyBoard {
      */
     public BoardState toState() {
         List<BoardState.StackEntry> entries = new ArrayList<>();
-        String[] keys;
-        synchronized (stacks) {
-            keys = stacks.keySet().toArray(new String[0]);
-        }
-        for (String key : keys) {
-            Deque<Piece> dq = stacks.get(key);
-            if (dq == null || dq.isEmpty()) continue;
-            String[] parts = key.split(",");
-            int r = Integer.parseInt(parts[0]);
-            int c = Integer.parseInt(parts[1]);
-            List<Piece.Type> types = new ArrayList<>();
-            synchronized (dq) {
-                for (Piece p : dq) {
-                    types.add(p.getType());
-                }
+        for (int sq = 0; sq < squares; sq++) {
+            int h = heights[sq];
+            if (h == 0) continue;
+            int base = sq * stackSlots;
+            List<Piece.Type> types = new ArrayList<>(h);
+            for (int i = 0; i < h; i++) {
+                types.add(PieceCode.type(codes[base + i]));
             }
-            entries.add(new BoardState.StackEntry(r, c, types));
+            entries.add(new BoardState.StackEntry(sq / COLS, sq % COLS, types));
         }
         return new BoardState(rows, COLS, entries, turn);
     }
@@ -370,7 +769,7 @@ public class Board implements ReadonlyBoard {
                 board.pushToStack(entry.row, entry.col, p);
             }
         }
-        board.turn = state.isRedTurn();
+        board.setTurn(state.isRedTurn());
         return board;
     }
 
@@ -387,7 +786,10 @@ public class Board implements ReadonlyBoard {
      * @param turn true 表示红方回合，false 表示黑方回合
      */
     public void setTurn(boolean turn) {
-        this.turn = turn;
+        if (this.turn != turn) {
+            this.turn = turn;
+            zobristKey ^= Zobrist.RED_TO_MOVE;
+        }
     }
 
     /**
@@ -395,5 +797,14 @@ public class Board implements ReadonlyBoard {
      */
     public void flipTurn() {
         turn = !turn;
+        zobristKey ^= Zobrist.RED_TO_MOVE;
+    }
+
+    /**
+     * 当前局面的 64 位 Zobrist 键，由各落子/提子/换手操作以 O(1) 增量维护。
+     */
+    @Override
+    public long getZobristKey() {
+        return zobristKey;
     }
 }
@@ -0,0 +1,73 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+/**
+ * 局面估值表 - 子力值加可选的位置分（piece-square），由 {@link Board} 在落子/提子时增量累加
+ *
+ * <p>表项按 (棋子编码, 格子) 存放带符号的分值：红方为正、黑方为负，只有每格的顶层棋子计分。
+ * 位置分以红方视角给出，黑方按行镜像（row → rows - 1 - row）取值，因此 10 行与 18 行棋盘可各自提供一套。</p>
+ */
+public final class EvalTable {
+    /** 各兵种子力值，下标为 {@link PieceCode} 的 kind */
+    private static final int[] MATERIAL = {10000, 200, 200, 400, 900, 450, 100};
+
+    /** 纯子力表按行数缓存；表不可变，竞争构建无害 */
+    private static final EvalTable[] MATERIAL_ONLY = new EvalTable[Board.EXPANDED_ROWS + 1];
+
+    private final int rows;
+    private final int squares;
+    private final int[] values;
+
+    private EvalTable(int rows, int[][] redPieceSquare) {
+        this.rows = rows;
+        this.squares = rows * Board.COLS;
+        this.values = new int[PieceCode.COUNT * squares];
+        for (int code = 1; code < PieceCode.COUNT; code++) {
+            int kind = PieceCode.kind(code);
+            boolean red = PieceCode.isRed(code);
+            for (int sq = 0; sq < squares; sq++) {
+                int v = MATERIAL[kind];
+                if (redPieceSquare != null && redPieceSquare[kind] != null) {
+                    int row = sq / Board.COLS, col = sq % Board.COLS;
+                    v += redPieceSquare[kind][Board.square(red ? row : rows - 1 - row, col)];
+                }
+                values[code * squares + sq] = red ? v : -v;
+            }
+        }
+    }
+
+    /** 只计子力值的估值表（与原逐格求和的 evaluate 结果一致） */
+    public static EvalTable materialOnly(int rows) {
+        if (rows >= MATERIAL_ONLY.length) {
+            return new EvalTable(rows, null);
+        }
+        EvalTable t = MATERIAL_ONLY[rows];
+        if (t == null) {
+            t = new EvalTable(rows, null);
+            MATERIAL_ONLY[rows] = t;
+        }
+        return t;
+    }
+
+    /**
+     * 子力值叠加位置分
+     *
+     * @param redPieceSquare 按兵种（kind）索引的红方视角位置分，每项长度为 rows * COLS；某兵种为 null 时只计子力
+     */
+    public static EvalTable withPieceSquare(int rows, int[][] redPieceSquare) {
+        for (int[] table : redPieceSquare) {
+            if (table != null && table.length != rows * Board.COLS) {
+                throw new IllegalArgumentException("piece-square table size mismatch: " + table.length);
+            }
+        }
+        return new EvalTable(rows, redPieceSquare);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /** 编码为 code 的棋子作为 sq 格顶层时的带符号分值，空格为 0 */
+    public int value(int code, int sq) {
+        return code == PieceCode.EMPTY ? 0 : values[code * squares + sq];
+    }
+}
@@ -12,14 +12,17 @@ import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.spi.GameSession;
 import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
 import io.github.samera2022.chinese_chess.common.spi.SessionListener;
+import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
 import io.github.samera2022.chinese_chess.common.model.BoardState;
 import io.github.samera2022.chinese_chess.common.model.HistoryItem;
 import io.github.samera2022.chinese_chess.common.model.Move;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.common.model.RuleChangeRecord;
 import io.github.samera2022.chinese_chess.core.rules.CheckDetector;
+import io.github.samera2022.chinese_chess.core.rules.MoveGenerator;
 import io.github.samera2022.chinese_chess.core.rules.MoveValidator;
 import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import io.github.samera2022.chinese_chess.core.rules.RuleSet;
 import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
 import io.github.samera2022.chinese_chess.core.rules.RulesConfigProvider;
 
@@ -33,6 +36,9 @@ import java.util.concurrent.locks.ReentrantLock;
  * 游戏引擎 - 管理游戏状态和逻辑
  */
 public class GameEngine implements GameStateAccessor, GameSession {
+    /** 复盘检查点间隔（步数） */
+    private static final int REPLAY_CHECKPOINT_INTERVAL = 16;
+
     private final Gson gson;
     private Board board;
     private MoveValidator validator;
@@ -59,6 +65,31 @@ public class GameEngine implements GameStateAccessor, GameSession {
     private boolean savedInitialIsRedTurn = true;
     private boolean isInReplayMode = false;
     private int currentReplayStep = -1;
+    /**
+     * 复盘检查点：第 k 项为 savedInitialBoard 走完前 k * REPLAY_CHECKPOINT_INTERVAL 步后的局面。
+     * 对局或复盘经过整点步数时追加，着法记录缩短时截断
+     */
+    private final List<Board> replayCheckpoints = new ArrayList<>();
+    /**
+     * 对局的局面历史（重复局面与长将判定）：第 i 项为第 positionHistoryBase + i 步后的局面。
+     * 清空后在下次走子前以当前局面重新开始记录
+     */
+    private final PositionHistory positionHistory = new PositionHistory();
+    private int positionHistoryBase;
+    /**
+     * 最近发布的状态快照。每次修改后（通知监听器之前）在引擎锁内重新发布，
+     * 各查询方法直接读取它而不加锁
+     */
+    private volatile GameSnapshot snapshot;
+    private long snapshotVersion;
+    /** 合法目标查询：生成器随 validator 重建；最近一次结果连同其查询条件缓存 */
+    private MoveGenerator destinationGenerator;
+    private MoveValidator destinationValidator;
+    private int[] destinationBuffer;
+    private BitSet cachedDestinations;
+    private long cachedDestinationsSnapshot = -1;
+    private long cachedDestinationsRulesVersion;
+    private int cachedDestinationsSquare, cachedDestinationsStackIndex;
 
     public GameEngine(GameRulesConfig injectedRulesConfig) {
         this.gson = new GsonBuilder()
@@ -75,6 +106,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         this.isRedTurn = true;
         this.gameState = GameStatus.RUNNING;
         this.listeners = new CopyOnWriteArrayList<>();
+        publishSnapshot();
     }
 
     public GameEngine() { this(RulesConfigProvider.get()); }
@@ -109,6 +141,8 @@ public class GameEngine implements GameStateAccessor, GameSession {
             this.gameState = GameStatus.RUNNING;
             this.savedInitialBoard = null;
             this.savedInitialIsRedTurn = true;
+            this.replayCheckpoints.clear();
+            this.positionHistory.clear();
             this.isInReplayMode = false;
             this.currentReplayStep = -1;
             notifyGameStateChanged();
@@ -135,20 +169,24 @@ public class GameEngine implements GameStateAccessor, GameSession {
 
             if (isInReplayMode && currentReplayStep >= 0 && currentReplayStep < moveHistory.size()) {
                 moveHistory = new ArrayList<>(moveHistory.subList(0, currentReplayStep));
+                trimReplayCheckpoints();
+                positionHistory.truncate(currentReplayStep - positionHistoryBase + 1);
                 isInReplayMode = false;
                 currentReplayStep = -1;
+                publishSnapshot();
             }
+            syncPositionHistory();
 
             List<Piece> fromStack = board.getStack(fromRow, fromCol);
             if (fromStack.isEmpty()) {
                 return false;
             }
 
+            // 整步着法只读取一次规则快照，避免逐项加锁查询
+            RuleSet rules = rulesConfig.getRuleSet();
             Piece piece;
             List<Piece> movedStack = new ArrayList<>();
-            boolean carryEnabled = rulesConfig.getBoolean(RuleRegistry.ALLOW_PIECE_STACKING.registryName) &&
-                    rulesConfig.getInt(RuleRegistry.MAX_STACKING_COUNT.registryName) > 1 &&
-                    rulesConfig.getBoolean(RuleRegistry.ALLOW_CARRY_PIECES_ABOVE.registryName);
+            boolean carryEnabled = rules.isStackingEnabled() && rules.has(RuleRegistry.ALLOW_CARRY_PIECES_ABOVE);
 
             if (selectedStackIndex >= 0 && selectedStackIndex < fromStack.size()) {
                 piece = fromStack.get(selectedStackIndex);
@@ -171,18 +209,18 @@ public class GameEngine implements GameStateAccessor, GameSession {
             boolean convertedCapture = false;
             boolean isStackingMove = false;
 
-            if (rulesConfig.getBoolean(RuleRegistry.ALLOW_PIECE_STACKING.registryName) &&
-                    rulesConfig.getInt(RuleRegistry.MAX_STACKING_COUNT.registryName) > 1 &&
+            if (rules.isStackingEnabled() &&
                     capturedPiece != null && capturedPiece.isRed() == piece.isRed()) {
                 int stackSize = board.getStackSize(toRow, toCol);
-                if (stackSize < rulesConfig.getInt(RuleRegistry.MAX_STACKING_COUNT.registryName)) {
+                if (stackSize < rules.getMaxStackingCount()) {
                     isStackingMove = true;
                     capturedPiece = null;
                 }
             }
 
             Piece convertedPiece = null;
-            if (capturedPiece != null && !isStackingMove && rulesConfig.getBoolean(RuleRegistry.ALLOW_CAPTURE_CONVERSION.registryName)) {
+            Piece.Type promotedTo = null;
+            if (capturedPiece != null && !isStackingMove && rules.has(RuleRegistry.ALLOW_CAPTURE_CONVERSION)) {
                 convertedPiece = new Piece(convertPieceTypeToSide(capturedPiece.getType(), piece.isRed()), toRow, toCol);
                 convertedCapture = true;
                 board.setPiece(toRow, toCol, convertedPiece);
@@ -219,9 +257,9 @@ public class GameEngine implements GameStateAccessor, GameSession {
                 }
             }
 
-            if (!convertedCapture && rulesConfig.getBoolean(RuleRegistry.PAWN_PROMOTION.registryName) &&
+            if (!convertedCapture && rules.has(RuleRegistry.PAWN_PROMOTION) &&
                     (piece.getType() == Piece.Type.RED_SOLDIER || piece.getType() == Piece.Type.BLACK_SOLDIER)) {
-                boolean tb2 = rulesConfig.getBoolean(RuleRegistry.TOP_BOTTOM_CONNECTED.registryName);
+                boolean tb2 = rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED);
                 int oppoRow, ownRow;
                 if (tb2) {
                     oppoRow = piece.isRed() ? 4 : 13;
@@ -232,9 +270,10 @@ public class GameEngine implements GameStateAccessor, GameSession {
                 }
                 boolean isAtOpponentBaseLine = toRow == oppoRow;
                 boolean isAtOwnBaseLine = toRow == ownRow;
-                boolean allowOwnBaseLine = rulesConfig.getBoolean(RuleRegistry.ALLOW_OWN_BASE_LINE.registryName);
+                boolean allowOwnBaseLine = rules.has(RuleRegistry.ALLOW_OWN_BASE_LINE);
                 if ((isAtOpponentBaseLine || (isAtOwnBaseLine && allowOwnBaseLine)) && promotionType != null) {
                     board.setPiece(toRow, toCol, new Piece(promotionType, toRow, toCol));
+                    promotedTo = promotionType;
                 }
             }
 
@@ -251,10 +290,14 @@ public class GameEngine implements GameStateAccessor, GameSession {
                 move.setSelectedStackIndex(selectedStackIndex);
                 move.setMovedStack(new ArrayList<>(movedStack));
             }
+            move.setPromotionType(promotedTo);
             moveHistory.add(move);
 
             isRedTurn = !isRedTurn;
             board.flipTurn();
+            recordReplayCheckpoint();
+            positionHistory.push(board.getZobristKey(), piece.isRed(), checkDetector.isInCheck(isRedTurn));
+            publishSnapshot();
             for (GameStateListener listener : listeners) {
                 listener.onMoveExecuted(move);
             }
@@ -288,6 +331,57 @@ public class GameEngine implements GameStateAccessor, GameSession {
         }
     }
 
+    /**
+     * 一次走法生成得到的全部合法目标格，与逐格调用 {@link #isValidMove(int, int, int, int, int)} 的结果一致。
+     * 局面与规则均未变化时重复查询同一格直接返回缓存结果的副本
+     */
+    @Override
+    public BitSet getLegalDestinations(int row, int col, int selectedStackIndex) {
+        engineLock.lock();
+        try {
+            int square = Board.square(row, col);
+            int stackIndex = Math.max(selectedStackIndex, -1);
+            if (cachedDestinations == null || cachedDestinationsSnapshot != snapshotVersion
+                    || destinationValidator != validator || cachedDestinationsRulesVersion != rulesConfig.getVersion()
+                    || cachedDestinationsSquare != square || cachedDestinationsStackIndex != stackIndex) {
+                cachedDestinations = computeLegalDestinations(row, col, stackIndex);
+                cachedDestinationsSnapshot = snapshotVersion;
+                cachedDestinationsRulesVersion = rulesConfig.getVersion();
+                cachedDestinationsSquare = square;
+                cachedDestinationsStackIndex = stackIndex;
+            }
+            return (BitSet) cachedDestinations.clone();
+        } finally {
+            engineLock.unlock();
+        }
+    }
+
+    private BitSet computeLegalDestinations(int row, int col, int stackIndex) {
+        int squares = board.getRows() * Board.COLS;
+        BitSet destinations = new BitSet(squares);
+        if (destinationValidator != validator) {
+            destinationGenerator = new MoveGenerator(board, validator);
+            destinationValidator = validator;
+        }
+        if (gameState != GameStatus.RUNNING || !board.isValid(row, col)) return destinations;
+        List<Piece> stack = board.getStack(row, col);
+        if (stack.isEmpty() || stackIndex >= stack.size()) return destinations;
+        Piece piece = stackIndex >= 0 ? stack.get(stackIndex) : board.getPiece(row, col);
+        if (piece.isRed() != isRedTurn) return destinations;
+        if (destinationBuffer == null || destinationBuffer.length < squares) {
+            destinationBuffer = new int[squares];
+        }
+        try {
+            int n = destinationGenerator.legalTargets(row, col, stackIndex, destinationBuffer);
+            for (int i = 0; i < n; i++) {
+                destinations.set(destinationBuffer[i]);
+            }
+        } catch (Throwable t) {
+            destinations.clear();
+        }
+        return destinations;
+    }
+
     public boolean forceApplyMove(int fromRow, int fromCol, int toRow, int toCol) {
         return forceApplyMove(fromRow, fromCol, toRow, toCol, null, -1);
     }
@@ -324,6 +418,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
             if (piece == null) {
                 return false;
             }
+            syncPositionHistory();
 
             Piece capturedPiece = board.getPiece(toRow, toCol);
             board.removePiece(toRow, toCol); // Remove any piece at the destination
@@ -342,10 +437,15 @@ public class GameEngine implements GameStateAccessor, GameSession {
             }
 
             Move move = new Move(fromRow, fromCol, toRow, toCol, piece, capturedPiece);
+            if (selectedStackIndex >= 0) move.setSelectedStackIndex(selectedStackIndex);
+            move.setPromotionType(promotionType);
             moveHistory.add(move);
 
             isRedTurn = !isRedTurn;
             board.flipTurn();
+            recordReplayCheckpoint();
+            positionHistory.push(board.getZobristKey(), piece.isRed(), checkDetector.isInCheck(isRedTurn));
+            publishSnapshot();
             for (GameStateListener listener : listeners) {
                 listener.onMoveExecuted(move);
             }
@@ -394,7 +494,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
                 gameState = GameStatus.RED_CHECKMATE;
             } else if (blackPieces == 0) {
                 gameState = GameStatus.BLACK_CHECKMATE;
-            } else {
+            } else if (!adjudicateRepetition()) {
                 return; // No change
             }
         } else {
@@ -409,14 +509,60 @@ public class GameEngine implements GameStateAccessor, GameSession {
                 gameState = GameStatus.BLACK_CHECKMATE;
             } else if (checkDetector.isCheckmate(true)) {
                 gameState = GameStatus.RED_CHECKMATE;
-            } else {
+            } else if (!adjudicateRepetition()) {
                 return; // No change
             }
         }
         notifyGameStateChanged();
     }
 
+    /** 当前局面第三次出现时判和，单方长将判其负；返回是否作出了裁决 */
+    private boolean adjudicateRepetition() {
+        GameStatus verdict = positionHistory.adjudicate(PositionHistory.REPETITION_LIMIT);
+        if (verdict == GameStatus.RUNNING) return false;
+        gameState = verdict;
+        return true;
+    }
+
+    /** 局面历史为空或与当前棋盘不一致（载入、导入、复盘后）时，从当前局面重新开始记录 */
+    private void syncPositionHistory() {
+        if (positionHistory.size() == 0 || positionHistory.top() != board.getZobristKey()) {
+            positionHistory.reset(board.getZobristKey());
+            positionHistoryBase = moveHistory.size();
+        }
+    }
+
+    /** 当前局面在本局中出现的次数（含当前局面） */
+    public int getRepetitionCount() {
+        engineLock.lock();
+        try {
+            syncPositionHistory();
+            return positionHistory.repetitions();
+        } finally {
+            engineLock.unlock();
+        }
+    }
+
+    /** 以当前棋盘与本局局面历史创建模拟上下文，AI 搜索可据此识别重复局面 */
+    @Override
+    public SimulationContext newSimulation() {
+        engineLock.lock();
+        try {
+            syncPositionHistory();
+            return new SimulationBoard(board, positionHistory, rulesConfig);
+        } finally {
+            engineLock.unlock();
+        }
+    }
+
+    /** 以当前状态发布新快照；调用方须持有引擎锁 */
+    private void publishSnapshot() {
+        snapshot = GameSnapshot.capture(++snapshotVersion, board, isRedTurn, gameState,
+                isInReplayMode, currentReplayStep, moveHistory, ruleChangeHistory);
+    }
+
     private void notifyGameStateChanged() {
+        publishSnapshot();
         for (GameStateListener listener : listeners) {
             listener.onGameStateChanged(gameState);
         }
@@ -437,9 +583,11 @@ public class GameEngine implements GameStateAccessor, GameSession {
 
             Move lastMove = moveHistory.remove(lastMoveIndex);
             undoMoveOnBoard(lastMove);
+            trimReplayCheckpoints();
 
             isRedTurn = !isRedTurn;
             board.flipTurn();
+            positionHistory.pop();
             gameState = GameStatus.RUNNING;
             notifyGameStateChanged();
             return true;
@@ -453,9 +601,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         Piece movedPiece = move.getPiece();
         if (movedPiece == null) return;
 
-        movedPiece.move(move.getFromRow(), move.getFromCol());
-        board.setPiece(move.getFromRow(), move.getFromCol(), movedPiece);
-
+        // 先还原目标格再放回起点，避免同一棋子对象同时占据两格
         if (move.isStacking()) {
             board.clearStack(move.getToRow(), move.getToCol());
             List<Piece> stackBefore = move.getStackBefore();
@@ -470,6 +616,8 @@ public class GameEngine implements GameStateAccessor, GameSession {
         } else {
             board.setPiece(move.getToRow(), move.getToCol(), move.getCapturedPiece());
         }
+        movedPiece.move(move.getFromRow(), move.getFromCol());
+        board.setPiece(move.getFromRow(), move.getFromCol(), movedPiece);
 
         List<Piece> movedStack = move.getMovedStack();
         if (movedStack != null && !movedStack.isEmpty()) {
@@ -496,6 +644,8 @@ public class GameEngine implements GameStateAccessor, GameSession {
             gameState = GameStatus.RUNNING;
             savedInitialBoard = null;
             savedInitialIsRedTurn = true;
+            replayCheckpoints.clear();
+            positionHistory.clear();
             isInReplayMode = false;
             currentReplayStep = -1;
             notifyGameStateChanged();
@@ -504,98 +654,57 @@ public class GameEngine implements GameStateAccessor, GameSession {
         }
     }
 
-    public Board getBoard() {
-        engineLock.lock();
-        try {
-            return board;
-        } finally {
-            engineLock.unlock();
-        }
+    /** 最近发布的局面快照；读取无需加锁，棋子为副本，不随之后的走子变化 */
+    @Override
+    public GameSnapshot getBoard() {
+        return snapshot;
+    }
+
+    /** 最近发布的完整状态快照（棋盘、行棋方、对局状态、复盘位置与历史记录），读取无需加锁 */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public long getStateVersion() {
+        return snapshot.getVersion();
     }
 
     // ── GameSession: 棋盘信息代理方法 ──
 
     @Override
     public Piece getPiece(int row, int col) {
-        engineLock.lock();
-        try {
-            return board.getPiece(row, col);
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getPiece(row, col);
     }
 
     @Override
     public List<Piece> getStack(int row, int col) {
-        engineLock.lock();
-        try {
-            return board.getStack(row, col);
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getStack(row, col);
     }
 
     @Override
     public int getStackSize(int row, int col) {
-        engineLock.lock();
-        try {
-            return board.getStackSize(row, col);
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getStackSize(row, col);
     }
 
     @Override
     public int getBoardRows() {
-        engineLock.lock();
-        try {
-            return board.getRows();
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getRows();
     }
 
     @Override
     public int getBoardCols() {
-        engineLock.lock();
-        try {
-            return board.getCols();
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getCols();
     }
 
     @Override
     public BoardState getBoardState() {
-        engineLock.lock();
-        try {
-            List<BoardState.StackEntry> entries = new ArrayList<>();
-            for (int r = 0; r < board.getRows(); r++) {
-                for (int c = 0; c < board.getCols(); c++) {
-                    List<Piece> stack = board.getStack(r, c);
-                    if (stack != null && !stack.isEmpty()) {
-                        List<Piece.Type> types = new ArrayList<>();
-                        for (Piece p : stack) {
-                            types.add(p.getType());
-                        }
-                        entries.add(new BoardState.StackEntry(r, c, types));
-                    }
-                }
-            }
-            return new BoardState(board.getRows(), board.getCols(), entries, board.isRedTurn());
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getBoardState();
     }
 
     @Override
     public List<Move> getMoveHistory() {
-        engineLock.lock();
-        try {
-            return new ArrayList<>(moveHistory);
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getMoveHistory();
     }
 
     @Override
@@ -603,6 +712,9 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             moveHistory.clear();
+            trimReplayCheckpoints();
+            positionHistory.clear();
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -613,6 +725,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             ruleChangeHistory.clear();
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -623,6 +736,8 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             moveHistory.add(move);
+            positionHistory.clear();
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -633,6 +748,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             ruleChangeHistory.add(ruleChange);
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -640,31 +756,12 @@ public class GameEngine implements GameStateAccessor, GameSession {
 
     @Override
     public List<RuleChangeRecord> getRuleChangeHistory() {
-        engineLock.lock();
-        try {
-            return new ArrayList<>(ruleChangeHistory);
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getRuleChangeHistory();
     }
 
+    @Override
     public List<HistoryItem> getCombinedHistory() {
-        engineLock.lock();
-        try {
-            List<HistoryItem> combined = new ArrayList<>();
-            combined.addAll(moveHistory);
-            combined.addAll(ruleChangeHistory);
-            combined.sort(Comparator.comparingDouble(item -> {
-                if (item instanceof Move) {
-                    return moveHistory.indexOf(item);
-                } else {
-                    return ((RuleChangeRecord) item).getAfterMoveIndex() + 0.5;
-                }
-            }));
-            return combined;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getCombinedHistory();
     }
 
     @Override
@@ -673,86 +770,131 @@ public class GameEngine implements GameStateAccessor, GameSession {
         try {
             savedInitialBoard = board.deepCopy();
             savedInitialIsRedTurn = isRedTurn;
+            resetReplayCheckpoints();
         } finally {
             engineLock.unlock();
         }
     }
 
+    /**
+     * 将棋盘重建到第 step 步后的局面：从不超过 step 的最近检查点载入，再重放其后的着法（至多
+     * REPLAY_CHECKPOINT_INTERVAL - 1 步），因此拖动复盘的耗时与对局长度无关
+     */
     public void rebuildBoardToStep(int step) {
         engineLock.lock();
         try {
             if (savedInitialBoard == null) return;
-            board.clearBoard();
-            for (int row = 0; row < board.getRows(); row++) {
-                for (int col = 0; col < board.getCols(); col++) {
-                    Piece piece = savedInitialBoard.getPiece(row, col);
-                    if (piece != null) {
-                        board.putPieceFresh(row, col, new Piece(piece.getType(), row, col));
-                    }
-                }
-            }
-            isRedTurn = savedInitialIsRedTurn;
-            board.setTurn(savedInitialIsRedTurn);
-            List<Move> moves = getMoveHistory();
-            for (int i = 0; i < step && i < moves.size(); i++) {
-                Move move = moves.get(i);
-                Piece piece = board.getPiece(move.getFromRow(), move.getFromCol());
-                if (piece == null) continue;
-                if (board.getPiece(move.getToRow(), move.getToCol()) != null) {
-                    board.removePiece(move.getToRow(), move.getToCol());
-                }
-                if (move.isCaptureConversion() && move.getConvertedPiece() != null) {
-                    board.setPiece(move.getToRow(), move.getToCol(), new Piece(move.getConvertedPiece().getType(), move.getToRow(), move.getToCol()));
-                } else {
-                    piece.move(move.getToRow(), move.getToCol());
-                    board.setPiece(move.getToRow(), move.getToCol(), piece);
-                    board.setPiece(move.getFromRow(), move.getFromCol(), null);
+            if (replayCheckpoints.isEmpty()) resetReplayCheckpoints();
+            int target = Math.max(0, Math.min(step, moveHistory.size()));
+            int k = Math.min(target / REPLAY_CHECKPOINT_INTERVAL, replayCheckpoints.size() - 1);
+            board.loadFrom(replayCheckpoints.get(k));
+            isRedTurn = board.isRedTurn();
+            for (int ply = k * REPLAY_CHECKPOINT_INTERVAL; ply < target; ply++) {
+                if (replayMoveOnBoard(moveHistory.get(ply))) {
+                    isRedTurn = !isRedTurn;
+                    board.flipTurn();
                 }
-                isRedTurn = !isRedTurn;
-                board.flipTurn();
+                recordReplayCheckpoint(ply + 1);
             }
             gameState = GameStatus.RUNNING;
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
     }
 
+    /**
+     * 按着法记录在棋盘上重放一步（堆叠、携带、俘虏与升变同 makeMove），不做合法性校验
+     *
+     * @return 起点为空而跳过时返回 false
+     */
+    private boolean replayMoveOnBoard(Move move) {
+        int fr = move.getFromRow(), fc = move.getFromCol(), tr = move.getToRow(), tc = move.getToCol();
+        List<Piece> fromStack = board.getStack(fr, fc);
+        if (fromStack.isEmpty()) return false;
+        if (move.isCaptureConversion() && move.getConvertedPiece() != null) {
+            board.setPiece(tr, tc, new Piece(move.getConvertedPiece().getType(), tr, tc));
+            return true;
+        }
+
+        int si = move.getSelectedStackIndex();
+        List<Piece> lifted = new ArrayList<>();
+        if (si >= 0 && si < fromStack.size()) {
+            List<Piece> movedStack = move.getMovedStack();
+            if (movedStack != null && !movedStack.isEmpty()) {
+                lifted.addAll(fromStack.subList(si, fromStack.size()));
+                for (int i = si; i < fromStack.size(); i++) {
+                    board.popTop(fr, fc);
+                }
+            } else {
+                lifted.add(board.removeFromStack(fr, fc, si));
+            }
+        } else {
+            lifted.add(board.popTop(fr, fc));
+        }
+
+        if (move.isStacking()) {
+            board.pushToStack(tr, tc, lifted.get(0));
+        } else {
+            board.setPiece(tr, tc, lifted.get(0));
+        }
+        for (int i = 1; i < lifted.size(); i++) {
+            board.pushToStack(tr, tc, lifted.get(i));
+        }
+        if (move.getPromotionType() != null) {
+            board.setPiece(tr, tc, new Piece(move.getPromotionType(), tr, tc));
+        }
+        return true;
+    }
+
+    /** 以 savedInitialBoard 为第 0 个检查点重新开始记录 */
+    private void resetReplayCheckpoints() {
+        replayCheckpoints.clear();
+        if (savedInitialBoard == null) return;
+        Board initial = new Board(savedInitialBoard);
+        initial.setTurn(savedInitialIsRedTurn);
+        replayCheckpoints.add(initial);
+    }
+
+    /** 当前棋盘为第 plies 步后的局面；恰为整点且尚无该检查点时记录 */
+    private void recordReplayCheckpoint(int plies) {
+        if (plies % REPLAY_CHECKPOINT_INTERVAL == 0 && replayCheckpoints.size() == plies / REPLAY_CHECKPOINT_INTERVAL) {
+            replayCheckpoints.add(new Board(board));
+        }
+    }
+
+    private void recordReplayCheckpoint() {
+        recordReplayCheckpoint(moveHistory.size());
+    }
+
+    /** 着法记录缩短后丢弃超出其长度的检查点 */
+    private void trimReplayCheckpoints() {
+        int keep = Math.min(replayCheckpoints.size(), moveHistory.size() / REPLAY_CHECKPOINT_INTERVAL + 1);
+        replayCheckpoints.subList(keep, replayCheckpoints.size()).clear();
+    }
+
     public void setReplayMode(boolean inReplayMode, int step) {
         engineLock.lock();
         try {
             this.isInReplayMode = inReplayMode;
             this.currentReplayStep = step;
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
     }
 
     public boolean isInReplayMode() {
-        engineLock.lock();
-        try {
-            return isInReplayMode;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.isInReplayMode();
     }
 
     public int getCurrentReplayStep() {
-        engineLock.lock();
-        try {
-            return currentReplayStep;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getCurrentReplayStep();
     }
 
     @Override
     public boolean isRedTurn() {
-        engineLock.lock();
-        try {
-            return isRedTurn;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.isRedTurn();
     }
 
     @Override
@@ -761,28 +903,19 @@ public class GameEngine implements GameStateAccessor, GameSession {
         try {
             this.isRedTurn = isRedTurn;
             this.board.setTurn(isRedTurn);
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
     }
 
     public GameStatus getGameState() {
-        engineLock.lock();
-        try {
-            return gameState;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getGameStatus();
     }
 
     @Override
     public GameStatus getGameStatus() {
-        engineLock.lock();
-        try {
-            return gameState;
-        } finally {
-            engineLock.unlock();
-        }
+        return snapshot.getGameStatus();
     }
 
     // ── GameStateAccessor 接口：common.GameStateListener ──
@@ -928,6 +1061,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             board.clearBoard();
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -939,6 +1073,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         try {
             Piece piece = new Piece(type, row, col);
             board.pushToStack(row, col, piece);
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -949,13 +1084,15 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             board.clearBoard();
-            if (state == null) return;
-            for (BoardState.StackEntry entry : state.getEntries()) {
-                for (Piece.Type type : entry.pieceTypes) {
-                    Piece p = new Piece(type, entry.row, entry.col);
-                    board.pushToStack(entry.row, entry.col, p);
+            if (state != null) {
+                for (BoardState.StackEntry entry : state.getEntries()) {
+                    for (Piece.Type type : entry.pieceTypes) {
+                        Piece p = new Piece(type, entry.row, entry.col);
+                        board.pushToStack(entry.row, entry.col, p);
+                    }
                 }
             }
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
@@ -966,6 +1103,7 @@ public class GameEngine implements GameStateAccessor, GameSession {
         engineLock.lock();
         try {
             // 通知监听器刷新 — 通过 null move 触发 UI 刷新
+            publishSnapshot();
             for (GameStateListener listener : listeners) {
                 listener.onMoveExecuted(null);
             }
@@ -1005,9 +1143,12 @@ public class GameEngine implements GameStateAccessor, GameSession {
             // 补充内部状态
             this.savedInitialBoard = board.deepCopy();
             this.savedInitialIsRedTurn = this.isRedTurn;
+            resetReplayCheckpoints();
+            this.positionHistory.clear();
             this.isInReplayMode = false;
             this.currentReplayStep = -1;
             this.validator = new MoveValidator(board, this.rulesConfig);
+            publishSnapshot();
         } finally {
             engineLock.unlock();
         }
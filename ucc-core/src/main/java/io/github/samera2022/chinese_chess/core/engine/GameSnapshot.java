@@ -0,0 +1,196 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+import io.github.samera2022.chinese_chess.common.GameStatus;
+import io.github.samera2022.chinese_chess.common.model.BoardState;
+import io.github.samera2022.chinese_chess.common.model.HistoryItem;
+import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.model.RuleChangeRecord;
+import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link GameEngine} 每次修改后发布的不可变局面快照：棋盘、行棋方、对局状态、复盘位置与历史记录。
+ *
+ * <p>棋子均为副本，引擎后续走子不会改动快照内容，因此读取方无需加锁即可得到一致的状态。
+ * {@link #getVersion()} 随每次发布单调递增，版本未变时可直接复用上次的计算结果。</p>
+ */
+public final class GameSnapshot implements ReadonlyBoard {
+    private final long version;
+    private final int rows;
+    /** 各格堆叠（由底到顶），下标 = row * COLS + col，空格为空列表 */
+    private final List<List<Piece>> stacks;
+    private final List<Piece> redPieces;
+    private final List<Piece> blackPieces;
+    private final Piece redKing;
+    private final Piece blackKing;
+    private final long zobristKey;
+    private final boolean redTurn;
+    private final GameStatus gameStatus;
+    private final boolean inReplayMode;
+    private final int replayStep;
+    private final List<Move> moveHistory;
+    private final List<RuleChangeRecord> ruleChangeHistory;
+
+    /** 按需计算并缓存；重复计算结果相同，并发下无需同步 */
+    private BoardState boardState;
+    private List<HistoryItem> combinedHistory;
+
+    private GameSnapshot(long version, Board board, boolean redTurn, GameStatus gameStatus,
+                         boolean inReplayMode, int replayStep,
+                         List<Move> moveHistory, List<RuleChangeRecord> ruleChangeHistory) {
+        this.version = version;
+        this.rows = board.getRows();
+        Piece liveRedKing = board.getRedKing(), liveBlackKing = board.getBlackKing();
+        Piece redKingCopy = null, blackKingCopy = null;
+        List<List<Piece>> squares = new ArrayList<>(rows * Board.COLS);
+        List<Piece> red = new ArrayList<>(), black = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < Board.COLS; c++) {
+                List<Piece> stack = board.getStack(r, c);
+                if (stack.isEmpty()) {
+                    squares.add(Collections.emptyList());
+                    continue;
+                }
+                Piece[] copies = new Piece[stack.size()];
+                for (int i = 0; i < copies.length; i++) {
+                    Piece live = stack.get(i);
+                    Piece copy = live.copyAt(r, c);
+                    copies[i] = copy;
+                    (copy.isRed() ? red : black).add(copy);
+                    if (live == liveRedKing) redKingCopy = copy;
+                    else if (live == liveBlackKing) blackKingCopy = copy;
+                }
+                squares.add(Collections.unmodifiableList(Arrays.asList(copies)));
+            }
+        }
+        this.stacks = squares;
+        this.redPieces = Collections.unmodifiableList(red);
+        this.blackPieces = Collections.unmodifiableList(black);
+        this.redKing = redKingCopy;
+        this.blackKing = blackKingCopy;
+        this.zobristKey = board.getZobristKey();
+        this.redTurn = redTurn;
+        this.gameStatus = gameStatus;
+        this.inReplayMode = inReplayMode;
+        this.replayStep = replayStep;
+        this.moveHistory = Collections.unmodifiableList(Arrays.asList(moveHistory.toArray(new Move[0])));
+        this.ruleChangeHistory = Collections.unmodifiableList(Arrays.asList(ruleChangeHistory.toArray(new RuleChangeRecord[0])));
+    }
+
+    /** 由引擎在持有引擎锁时调用，复制当前全部可见状态 */
+    static GameSnapshot capture(long version, Board board, boolean redTurn, GameStatus gameStatus,
+                                boolean inReplayMode, int replayStep,
+                                List<Move> moveHistory, List<RuleChangeRecord> ruleChangeHistory) {
+        return new GameSnapshot(version, board, redTurn, gameStatus, inReplayMode, replayStep,
+                moveHistory, ruleChangeHistory);
+    }
+
+    /** 发布序号，每次引擎状态变化后加一 */
+    public long getVersion() { return version; }
+
+    @Override
+    public int getRows() { return rows; }
+
+    @Override
+    public int getCols() { return Board.COLS; }
+
+    @Override
+    public boolean isValid(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < Board.COLS;
+    }
+
+    @Override
+    public Piece getPiece(int row, int col) {
+        if (!isValid(row, col)) return null;
+        List<Piece> stack = stacks.get(row * Board.COLS + col);
+        return stack.isEmpty() ? null : stack.get(stack.size() - 1);
+    }
+
+    @Override
+    public List<Piece> getStack(int row, int col) {
+        if (!isValid(row, col)) return Collections.emptyList();
+        return stacks.get(row * Board.COLS + col);
+    }
+
+    @Override
+    public int getStackSize(int row, int col) {
+        return getStack(row, col).size();
+    }
+
+    @Override
+    public List<Piece> getRedPieces() { return redPieces; }
+
+    @Override
+    public List<Piece> getBlackPieces() { return blackPieces; }
+
+    @Override
+    public Piece getRedKing() { return redKing; }
+
+    @Override
+    public Piece getBlackKing() { return blackKing; }
+
+    @Override
+    public long getZobristKey() { return zobristKey; }
+
+    public boolean isRedTurn() { return redTurn; }
+
+    public GameStatus getGameStatus() { return gameStatus; }
+
+    public boolean isInReplayMode() { return inReplayMode; }
+
+    public int getCurrentReplayStep() { return replayStep; }
+
+    /** 着法记录（只读） */
+    public List<Move> getMoveHistory() { return moveHistory; }
+
+    /** 规则变更记录（只读） */
+    public List<RuleChangeRecord> getRuleChangeHistory() { return ruleChangeHistory; }
+
+    /** 棋盘的类型化快照，首次调用时生成 */
+    public BoardState getBoardState() {
+        BoardState state = boardState;
+        if (state == null) {
+            List<BoardState.StackEntry> entries = new ArrayList<>();
+            for (int sq = 0; sq < stacks.size(); sq++) {
+                List<Piece> stack = stacks.get(sq);
+                if (stack.isEmpty()) continue;
+                List<Piece.Type> types = new ArrayList<>(stack.size());
+                for (Piece p : stack) {
+                    types.add(p.getType());
+                }
+                entries.add(new BoardState.StackEntry(sq / Board.COLS, sq % Board.COLS, types));
+            }
+            state = new BoardState(rows, Board.COLS, Collections.unmodifiableList(entries), redTurn);
+            boardState = state;
+        }
+        return state;
+    }
+
+    /** 着法与规则变更按发生顺序合并（规则变更排在其 afterMoveIndex 对应着法之后），首次调用时生成 */
+    public List<HistoryItem> getCombinedHistory() {
+        List<HistoryItem> combined = combinedHistory;
+        if (combined == null) {
+            List<HistoryItem> merged = new ArrayList<>(moveHistory.size() + ruleChangeHistory.size());
+            List<RuleChangeRecord> changes = new ArrayList<>(ruleChangeHistory);
+            changes.sort((a, b) -> Integer.compare(a.getAfterMoveIndex(), b.getAfterMoveIndex()));
+            int next = 0;
+            for (int i = 0; i < moveHistory.size(); i++) {
+                while (next < changes.size() && changes.get(next).getAfterMoveIndex() < i) {
+                    merged.add(changes.get(next++));
+                }
+                merged.add(moveHistory.get(i));
+            }
+            while (next < changes.size()) {
+                merged.add(changes.get(next++));
+            }
+            combined = Collections.unmodifiableList(merged);
+            combinedHistory = combined;
+        }
+        return combined;
+    }
+}
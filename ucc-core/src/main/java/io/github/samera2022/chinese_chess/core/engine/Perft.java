@@ -0,0 +1,336 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+import com.google.gson.Gson;
+import io.github.samera2022.chinese_chess.common.model.BoardState;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Perft - 统计从某局面出发到指定深度的走法树叶节点数，用于校验走法生成的正确性并测量其吞吐量
+ *
+ * <p>走子与撤销均经由 {@link SimulationBoard}（即 {@link io.github.samera2022.chinese_chess.common.spi.SimulationContext}
+ * 的实现），与 MCTS / 自对弈走的是同一条路径。规则组合由传入的 {@link GameRulesConfig} 决定，不读取也不修改全局配置，
+ * 因此不同规则组合可以同时运行。</p>
+ *
+ * <p>并行度大于 1 时按根节点着法拆分到 {@link ForkJoinPool}，每个任务在自己的棋盘副本上搜索。
+ * 开启交叉校验后，每个内部节点都会与 {@link SimulationBoard#generateLegalMovesBruteForce(int[])}
+ * 的全遍历结果比对，记录不一致的节点数和第一个不一致的局面；交叉校验很慢，只用于验证新的生成器。</p>
+ *
+ * <p>命令行：{@code Perft <depth> [standard|symmetric|<BoardState json>] [threads=N] [rules=a,b,c=3] [verify] [divide]}</p>
+ */
+public final class Perft {
+
+    private final GameRulesConfig rulesConfig;
+    private int parallelism = 1;
+    private boolean crossCheck;
+
+    public Perft(GameRulesConfig rulesConfig) {
+        if (rulesConfig == null) throw new IllegalArgumentException("rulesConfig cannot be null");
+        this.rulesConfig = rulesConfig;
+    }
+
+    /** 并行线程数，1 表示在调用线程上顺序执行 */
+    public Perft setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /** 是否在每个内部节点与全遍历生成结果交叉校验 */
+    public Perft setCrossCheck(boolean crossCheck) {
+        this.crossCheck = crossCheck;
+        return this;
+    }
+
+    /**
+     * 按给定顺序开启规则的配置（其余为默认值）。取值形如 {@code name} 或 {@code name=value}；
+     * 依赖其他规则的规则须排在其依赖之后，若因依赖或冲突未能开启则抛出 IllegalArgumentException
+     */
+    public static GameRulesConfig rules(String... settings) {
+        GameRulesConfig config = new GameRulesConfig();
+        for (String setting : settings) {
+            if (setting == null || setting.isEmpty()) continue;
+            int eq = setting.indexOf('=');
+            String name = eq < 0 ? setting : setting.substring(0, eq);
+            RuleRegistry rule = RuleRegistry.getByRegistryName(name);
+            if (rule == null) throw new IllegalArgumentException("unknown rule: " + name);
+            Object value = eq < 0 ? Boolean.TRUE : parseValue(setting.substring(eq + 1));
+            config.set(rule.registryName, value, GameRulesConfig.ChangeSource.API);
+            if (!value.equals(config.getAllValues().get(rule.registryName))) {
+                throw new IllegalArgumentException("rule " + name + " could not be set to " + value
+                        + " (requires " + Arrays.toString(rule.dependentRegistryNames)
+                        + ", conflicts with " + Arrays.toString(rule.conflictRegistryNames) + ")");
+            }
+        }
+        return config;
+    }
+
+    /** 按给定顺序开启规则的配置 */
+    public static GameRulesConfig rules(RuleRegistry... enabled) {
+        String[] names = new String[enabled.length];
+        for (int i = 0; i < enabled.length; i++) {
+            names[i] = enabled[i].registryName;
+        }
+        return rules(names);
+    }
+
+    private static Object parseValue(String text) {
+        if ("true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text)) {
+            return Boolean.parseBoolean(text);
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid rule value: " + text);
+        }
+    }
+
+    public Result run(BoardState state, int depth) {
+        return run(Board.fromState(state), depth);
+    }
+
+    /** 从 position 的当前局面与行棋方出发统计到 depth 层；position 本身不会被修改 */
+    public Result run(Board position, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("depth must be >= 0: " + depth);
+        SimulationBoard root = new SimulationBoard(position, rulesConfig);
+        Counter counter = new Counter(depth);
+        long start = System.nanoTime();
+        if (depth == 0) {
+            return new Result(depth, 1, System.nanoTime() - start, 0, null, new int[0], new long[0]);
+        }
+
+        // 根节点着法在搜索期间要保留，复制出缓冲区
+        int[] rootMoves = Arrays.copyOf(counter.buffers[0], counter.generate(root, counter.buffers[0]));
+        long[] rootCounts = new long[rootMoves.length];
+        if (parallelism == 1 || rootMoves.length < 2) {
+            for (int i = 0; i < rootMoves.length; i++) {
+                rootCounts[i] = counter.child(root, rootMoves[i], depth - 1, 1);
+            }
+        } else {
+            // 副本在提交前于调用线程创建：fork 会缓存根局面历史的冻结前缀
+            List<RootTask> tasks = new ArrayList<>(rootMoves.length);
+            for (int move : rootMoves) {
+                tasks.add(new RootTask((SimulationBoard) root.fork(), move, depth, counter));
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (RootTask task : tasks) {
+                    pool.execute(task);
+                }
+                for (int i = 0; i < rootCounts.length; i++) {
+                    rootCounts[i] = tasks.get(i).join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long nodes = 0;
+        for (long c : rootCounts) {
+            nodes += c;
+        }
+        return new Result(depth, nodes, System.nanoTime() - start, counter.mismatches.get(),
+                counter.firstMismatch.get(), rootMoves, rootCounts);
+    }
+
+    /** 单个根节点着法的子树，持有独立的棋盘副本与缓冲区 */
+    private final class RootTask extends RecursiveTask<Long> {
+        private final SimulationBoard board;
+        private final int move;
+        private final int depth;
+        private final Counter shared;
+
+        RootTask(SimulationBoard board, int move, int depth, Counter shared) {
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+            this.shared = shared;
+        }
+
+        @Override
+        protected Long compute() {
+            Counter counter = new Counter(depth, shared);
+            return counter.child(board, move, depth - 1, 1);
+        }
+    }
+
+    /** 递归计数；每个线程一份，各层缓冲区按 ply 复用，不一致统计在同一搜索的所有线程间共享 */
+    private final class Counter {
+        final int[][] buffers;
+        final int[] bruteBuffer;
+        final AtomicLong mismatches;
+        final AtomicReference<BoardState> firstMismatch;
+
+        Counter(int depth) {
+            this(depth, new AtomicLong(), new AtomicReference<>());
+        }
+
+        Counter(int depth, Counter shared) {
+            this(depth, shared.mismatches, shared.firstMismatch);
+        }
+
+        private Counter(int depth, AtomicLong mismatches, AtomicReference<BoardState> firstMismatch) {
+            this.buffers = new int[depth][PackedMove.BUFFER_SIZE];
+            this.bruteBuffer = crossCheck ? new int[PackedMove.BUFFER_SIZE] : null;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+        }
+
+        /** 走 move 后统计剩余 depth 层，返回前撤销 */
+        long child(SimulationBoard board, int move, int depth, int ply) {
+            if (!board.simulateMove(move)) {
+                throw new IllegalStateException("generated move rejected by simulateMove: " + PackedMove.toString(move)
+                        + "\n" + board);
+            }
+            long nodes = count(board, depth, ply);
+            board.simulateUndo();
+            return nodes;
+        }
+
+        long count(SimulationBoard board, int depth, int ply) {
+            if (depth == 0) return 1;
+            int[] moves = buffers[ply];
+            int n = generate(board, moves);
+            // 叶节点的父层直接计数，不再逐个走子
+            if (depth == 1) return n;
+            long nodes = 0;
+            for (int i = 0; i < n; i++) {
+                nodes += child(board, moves[i], depth - 1, ply + 1);
+            }
+            return nodes;
+        }
+
+        int generate(SimulationBoard board, int[] moves) {
+            int n = board.generateLegalMoves(moves);
+            if (crossCheck) {
+                int expected = board.generateLegalMovesBruteForce(bruteBuffer);
+                if (!sameMoveSet(moves, n, bruteBuffer, expected)) {
+                    mismatches.incrementAndGet();
+                    firstMismatch.compareAndSet(null, board.toState());
+                }
+            }
+            return n;
+        }
+    }
+
+    /** 两组着法是否相同（忽略顺序）；会打乱 b 的顺序 */
+    private static boolean sameMoveSet(int[] a, int n, int[] b, int m) {
+        if (n != m) return false;
+        int[] sorted = Arrays.copyOf(a, n);
+        Arrays.sort(sorted);
+        Arrays.sort(b, 0, m);
+        for (int i = 0; i < n; i++) {
+            if (sorted[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    /** 一次 perft 的结果 */
+    public static final class Result {
+        private final int depth;
+        private final long nodes;
+        private final long nanos;
+        private final long mismatches;
+        private final BoardState firstMismatch;
+        private final int[] rootMoves;
+        private final long[] rootCounts;
+
+        Result(int depth, long nodes, long nanos, long mismatches, BoardState firstMismatch,
+               int[] rootMoves, long[] rootCounts) {
+            this.depth = depth;
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+            this.rootMoves = rootMoves;
+            this.rootCounts = rootCounts;
+        }
+
+        public int getDepth() { return depth; }
+        public long getNodes() { return nodes; }
+        public long getNanos() { return nanos; }
+
+        public double getNodesPerSecond() {
+            return nanos > 0 ? nodes * 1e9 / nanos : 0.0;
+        }
+
+        /** 交叉校验中与全遍历结果不一致的节点数，未开启交叉校验时为 0 */
+        public long getMismatches() { return mismatches; }
+
+        /** 第一个不一致的局面，没有时为 null */
+        public BoardState getFirstMismatch() { return firstMismatch; }
+
+        /** 根节点着法（{@link PackedMove} 编码），与 {@link #getRootCounts()} 一一对应 */
+        public int[] getRootMoves() { return rootMoves.clone(); }
+
+        /** 每个根节点着法下的叶节点数（divide） */
+        public long[] getRootCounts() { return rootCounts.clone(); }
+
+        @Override
+        public String toString() {
+            return String.format("perft(%d) = %d  %.1f ms  %.0f nodes/s%s", depth, nodes, nanos / 1e6,
+                    getNodesPerSecond(), mismatches > 0 ? "  mismatches=" + mismatches : "");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: Perft <depth> [standard|symmetric|<BoardState json>] [threads=N] "
+                    + "[rules=a,b,c=3] [verify] [divide]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[0]);
+        String position = "standard";
+        int threads = 1;
+        String[] rules = new String[0];
+        boolean verify = false, divide = false;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("threads=")) threads = Integer.parseInt(arg.substring("threads=".length()));
+            else if (arg.startsWith("rules=")) rules = arg.substring("rules=".length()).split(",");
+            else if (arg.equals("verify")) verify = true;
+            else if (arg.equals("divide")) divide = true;
+            else position = arg;
+        }
+
+        Board board;
+        if (position.equals("standard")) {
+            board = new Board(Board.STANDARD_ROWS);
+        } else if (position.equals("symmetric")) {
+            board = new Board(Board.EXPANDED_ROWS);
+        } else {
+            try (Reader reader = Files.newBufferedReader(Paths.get(position), StandardCharsets.UTF_8)) {
+                board = Board.fromState(new Gson().fromJson(reader, BoardState.class));
+            }
+        }
+
+        Perft perft = new Perft(rules(rules)).setParallelism(threads).setCrossCheck(verify);
+        for (int d = 1; d <= depth; d++) {
+            Result result = perft.run(board, d);
+            System.out.println(result);
+            if (result.getFirstMismatch() != null) {
+                System.out.println("first mismatch: " + Board.fromState(result.getFirstMismatch()));
+            }
+            if (divide && d == depth) {
+                int[] moves = result.getRootMoves();
+                long[] counts = result.getRootCounts();
+                for (int i = 0; i < moves.length; i++) {
+                    System.out.println("  " + PackedMove.toString(moves[i]) + ": " + counts[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+import io.github.samera2022.chinese_chess.common.model.Piece;
+
+/**
+ * 棋子的紧凑整数编码 - 供 {@link Board} 的原始数组存储及走法生成热路径使用
+ *
+ * <p>编码规则：0 表示空，否则为 {@code Piece.Type.ordinal() + 1}（1-7 为红方，8-14 为黑方）。
+ * 兵种（kind）为 {@code (code - 1) % 7}，与 {@link Piece.Type} 中红黑各 7 种的声明顺序一致。</p>
+ */
+public final class PieceCode {
+    public static final int EMPTY = 0;
+    /** 编码上限（不含），可直接作为按编码索引的数组长度 */
+    public static final int COUNT = 15;
+
+    public static final int KING = 0;
+    public static final int ADVISOR = 1;
+    public static final int ELEPHANT = 2;
+    public static final int HORSE = 3;
+    public static final int CHARIOT = 4;
+    public static final int CANNON = 5;
+    public static final int SOLDIER = 6;
+
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+
+    private PieceCode() {}
+
+    public static int of(Piece.Type type) {
+        return type.ordinal() + 1;
+    }
+
+    public static Piece.Type type(int code) {
+        return code == EMPTY ? null : TYPES[code - 1];
+    }
+
+    public static boolean isRed(int code) {
+        return code >= 1 && code <= 7;
+    }
+
+    public static int kind(int code) {
+        return (code - 1) % 7;
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+import io.github.samera2022.chinese_chess.common.GameStatus;
+
+import java.util.Arrays;
+
+/**
+ * 局面历史 - 按 Zobrist 键计数的局面栈，用于重复局面与长将判定
+ *
+ * <p>栈中每项记录一个局面的键、走出该局面的一方以及该着是否将军；另以线性探测哈希表维护每个键的出现次数，
+ * 入栈、出栈与查询次数均为 O(1)。只有在某局面出现满裁决次数时才回溯本轮循环，判断是否为单方长将。</p>
+ *
+ * <p>{@link #fork()} 不复制整段历史：当前内容冻结为一份只读前缀（自身未变化时重复使用同一份），
+ * 副本只在其上记录自己新增的局面，因此 MCTS 每次模拟的 fork 代价与对局长度无关。
+ * 副本不能回退到前缀之前。非线程安全：每个棋盘持有自己的实例。</p>
+ */
+public final class PositionHistory {
+    /** 同一局面出现的次数达到该值即裁决（三次重复） */
+    public static final int REPETITION_LIMIT = 3;
+
+    private static final byte RED_MOVED = 1;
+    private static final byte CHECK = 2;
+    /** 起始局面：不由任何着法走出，不参与长将判定 */
+    private static final byte ROOT = 4;
+
+    /** 只读前缀（冻结副本，本身没有前缀），可为 null */
+    private final PositionHistory base;
+    private final int baseSize;
+
+    private long[] stackKeys = new long[16];
+    private byte[] stackFlags = new byte[16];
+    private int size;
+
+    /** 计数表：tableCounts 存“次数 + 1”，0 表示空槽；次数归零的键保留到下次扩容，以免打断探测链 */
+    private long[] tableKeys = new long[16];
+    private int[] tableCounts = new int[16];
+    private int tableFilled;
+
+    /** fork 时共享的冻结副本，自身变化后作废 */
+    private PositionHistory frozen;
+
+    public PositionHistory() {
+        this.base = null;
+        this.baseSize = 0;
+    }
+
+    private PositionHistory(PositionHistory base, int baseSize) {
+        this.base = base;
+        this.baseSize = baseSize;
+    }
+
+    /** 以当前内容为只读前缀的副本 */
+    public PositionHistory fork() {
+        if (frozen == null) {
+            PositionHistory flat = new PositionHistory();
+            for (int i = 0; i < size(); i++) {
+                flat.append(keyAt(i), flagsAt(i));
+            }
+            frozen = flat;
+        }
+        return new PositionHistory(frozen, frozen.size);
+    }
+
+    /** 清空后以 key 为起始局面（有前缀的副本不支持） */
+    public void reset(long key) {
+        clear();
+        append(key, ROOT);
+    }
+
+    /**
+     * 记录一步着法走出的局面
+     *
+     * @param redMoved 走出该局面的是否为红方
+     * @param check    该着之后对方是否被将
+     */
+    public void push(long key, boolean redMoved, boolean check) {
+        append(key, (byte) ((redMoved ? RED_MOVED : 0) | (check ? CHECK : 0)));
+    }
+
+    /** 撤销最近记录的局面；只剩起始局面或已回到前缀时不做处理 */
+    public void pop() {
+        if (size == 0 || size() <= 1) return;
+        frozen = null;
+        size--;
+        tableCounts[find(stackKeys[size])]--;
+    }
+
+    /** 回退到只保留前 newSize 个局面 */
+    public void truncate(int newSize) {
+        while (size() > Math.max(newSize, 1) && size > 0) {
+            pop();
+        }
+    }
+
+    public void clear() {
+        if (base != null) throw new IllegalStateException("cannot clear a forked position history");
+        frozen = null;
+        size = 0;
+        Arrays.fill(tableCounts, 0);
+        tableFilled = 0;
+    }
+
+    /** 局面总数（含前缀） */
+    public int size() {
+        return baseSize + size;
+    }
+
+    /** 最近记录的局面键，空历史时返回 0 */
+    public long top() {
+        int n = size();
+        return n == 0 ? 0L : keyAt(n - 1);
+    }
+
+    /** 局面 key 在历史中出现的次数 */
+    public int count(long key) {
+        int c = tableCounts[find(key)];
+        return (c == 0 ? 0 : c - 1) + (base == null ? 0 : base.count(key));
+    }
+
+    /** 当前（最近）局面出现的次数 */
+    public int repetitions() {
+        int n = size();
+        return n == 0 ? 0 : count(keyAt(n - 1));
+    }
+
+    /**
+     * 重复局面裁决：当前局面出现满 limit 次时回溯这几次出现之间的着法，
+     * 只有一方每着都在将军则判其负（长将），否则判和；未满 limit 次返回 {@link GameStatus#RUNNING}
+     *
+     * @return {@link GameStatus#RED_CHECKMATE} 表示红方长将判负，{@link GameStatus#BLACK_CHECKMATE} 表示黑方长将判负
+     */
+    public GameStatus adjudicate(int limit) {
+        if (repetitions() < limit) {
+            return GameStatus.RUNNING;
+        }
+        int n = size();
+        long key = keyAt(n - 1);
+        int start = n - 1;
+        for (int i = n - 2, seen = 1; i >= 0 && seen < limit; i--) {
+            if (keyAt(i) == key) {
+                seen++;
+                start = i;
+            }
+        }
+        boolean redMoved = false, blackMoved = false, redChecks = true, blackChecks = true;
+        for (int i = start + 1; i < n; i++) {
+            byte f = flagsAt(i);
+            if ((f & ROOT) != 0) continue;
+            boolean check = (f & CHECK) != 0;
+            if ((f & RED_MOVED) != 0) {
+                redMoved = true;
+                redChecks &= check;
+            } else {
+                blackMoved = true;
+                blackChecks &= check;
+            }
+        }
+        boolean redPerpetual = redMoved && redChecks;
+        boolean blackPerpetual = blackMoved && blackChecks;
+        if (redPerpetual != blackPerpetual) {
+            return redPerpetual ? GameStatus.RED_CHECKMATE : GameStatus.BLACK_CHECKMATE;
+        }
+        return GameStatus.DRAW;
+    }
+
+    private long keyAt(int i) {
+        return i < baseSize ? base.stackKeys[i] : stackKeys[i - baseSize];
+    }
+
+    private byte flagsAt(int i) {
+        return i < baseSize ? base.stackFlags[i] : stackFlags[i - baseSize];
+    }
+
+    private void append(long key, byte flags) {
+        frozen = null;
+        if (size == stackKeys.length) {
+            stackKeys = Arrays.copyOf(stackKeys, size * 2);
+            stackFlags = Arrays.copyOf(stackFlags, size * 2);
+        }
+        int i = find(key);
+        if (tableCounts[i] == 0) {
+            if ((tableFilled + 1) * 2 > tableKeys.length) {
+                rehash();
+                i = find(key);
+            }
+            tableKeys[i] = key;
+            tableCounts[i] = 1;
+            tableFilled++;
+        }
+        tableCounts[i]++;
+        stackKeys[size] = key;
+        stackFlags[size] = flags;
+        size++;
+    }
+
+    /** key 所在槽位，不存在时为其应插入的空槽 */
+    private int find(long key) {
+        int mask = tableKeys.length - 1;
+        int i = (int) (key ^ (key >>> 32)) * 0x9E3779B9 & mask;
+        while (tableCounts[i] != 0 && tableKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /** 扩容并丢弃计数已归零的键；计数由栈中现存局面重新累计 */
+    private void rehash() {
+        int capacity = tableKeys.length;
+        while (capacity < (size + 1) * 4) capacity *= 2;
+        tableKeys = new long[capacity];
+        tableCounts = new int[capacity];
+        tableFilled = 0;
+        for (int s = 0; s < size; s++) {
+            int i = find(stackKeys[s]);
+            if (tableCounts[i] == 0) {
+                tableKeys[i] = stackKeys[s];
+                tableCounts[i] = 1;
+                tableFilled++;
+            }
+            tableCounts[i]++;
+        }
+    }
+}
@@ -1,37 +1,94 @@
 package io.github.samera2022.chinese_chess.core.engine;
 
+import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
 import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
 import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
 import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
+import io.github.samera2022.chinese_chess.core.rules.AttackTables;
+import io.github.samera2022.chinese_chess.core.rules.CheckDetector;
+import io.github.samera2022.chinese_chess.core.rules.GameRulesConfig;
+import io.github.samera2022.chinese_chess.core.rules.MoveGenerator;
 import io.github.samera2022.chinese_chess.core.rules.MoveValidator;
+import io.github.samera2022.chinese_chess.core.rules.RuleSet;
 import io.github.samera2022.chinese_chess.core.rules.RulesConfigProvider;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.List;
 
 public class SimulationBoard extends Board implements SimulationContext {
 
+    /** 撤销日志操作：ATTACH 以 detach 撤销，DETACH 按记录的层号与列表下标 attach 回去 */
+    private static final int ATTACH = 0;
+    private static final int DETACH = 1;
+    /** 附加标志：该棋子由模拟创建（吃子转换、升变），撤销后回收到对象池 */
+    private static final int CREATED = 2;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final Piece[] NO_PIECES = new Piece[0];
+
     private final MoveValidator validator;
-    private final Deque<UndoRecord> undoStack = new ArrayDeque<>();
-    private final List<Move> simulatedMoves = new ArrayList<>();
+
+    /** 撤销日志（并行数组，按需倍增，首次走子时分配以保持 fork 廉价） */
+    private int[] logOps = NO_INTS;
+    private int[] logSquares = NO_INTS;
+    private int[] logLevels = NO_INTS;
+    private int[] logIndices = NO_INTS;
+    private Piece[] logPieces = NO_PIECES;
+    private int logSize;
+
+    /** 每一步的日志起点及走子记录，供撤销与 {@link #getSimulatedMoves()} 使用 */
+    private int[] plyMoves = NO_INTS;
+    private int[] plyLogStart = NO_INTS;
+    private boolean[] plyConverted = new boolean[0];
+    private Piece[] plyMoved = NO_PIECES;
+    private Piece[] plyCaptured = NO_PIECES;
+    private int plyCount;
+
+    /** 按棋子编码分组的回收棋子 */
+    private final Piece[][] piecePool = new Piece[PieceCode.COUNT][];
+    private final int[] poolSizes = new int[PieceCode.COUNT];
+    /** generateLegalMoves() 列表版本复用的打包着法缓冲区，首次使用时分配以降低 fork 成本 */
+    private int[] moveBuffer;
+    /** 单个棋子的候选目标格（格子索引），容量为棋盘格数 */
+    private final int[] targetBuffer;
+    private final MoveGenerator generator;
+    /** 对局与模拟路径上的局面历史，随走子/撤销增减；fork 时共享只读前缀 */
+    private final PositionHistory positions;
+    /** 为局面历史标记将军，首次走子或查询将军时创建 */
+    private CheckDetector checkDetector;
 
     public SimulationBoard(Board source) {
-        super(source.getRows(), false);
-        for (int r = 0; r < source.getRows(); r++) {
-            for (int c = 0; c < source.getCols(); c++) {
-                List<Piece> stack = source.getStack(r, c);
-                for (Piece p : stack) {
-                    Piece copy = new Piece(p.getType(), r, c);
-                    pushToStack(r, c, copy);
-                }
-            }
+        this(source, source instanceof SimulationBoard
+                ? ((SimulationBoard) source).validator.getRulesConfig() : RulesConfigProvider.get());
+    }
+
+    /**
+     * 按指定规则配置模拟，不读取全局 {@link RulesConfigProvider}；不同规则组合的模拟可并存（如 {@link Perft}）
+     */
+    public SimulationBoard(Board source, GameRulesConfig rulesConfig) {
+        this(source, source instanceof SimulationBoard ? ((SimulationBoard) source).positions : null, rulesConfig);
+    }
+
+    /**
+     * 以 history 为此前的局面历史（如 {@link GameEngine} 的对局记录）；
+     * history 为空或其最近局面与 source 不一致时只从当前局面开始记录
+     */
+    SimulationBoard(Board source, PositionHistory history, GameRulesConfig rulesConfig) {
+        super(source);
+        if (rulesConfig == null) throw new IllegalArgumentException("rulesConfig cannot be null");
+        this.validator = new MoveValidator(this, rulesConfig);
+        this.generator = new MoveGenerator(this, validator);
+        this.targetBuffer = new int[getRows() * COLS];
+        if (history != null && history.size() > 0 && history.top() == getZobristKey()) {
+            this.positions = history.fork();
+        } else {
+            this.positions = new PositionHistory();
+            this.positions.reset(getZobristKey());
         }
-        this.turn = source.turn;
-        this.validator = new MoveValidator(this, RulesConfigProvider.get());
     }
 
     @Override
@@ -41,63 +98,227 @@ public class SimulationBoard extends Board implements SimulationContext {
 
     @Override
     public boolean simulateMove(int fromRow, int fromCol, int toRow, int toCol) {
-        Piece piece = getPiece(fromRow, fromCol);
-        if (piece == null) {
+        return simulateMove(fromRow, fromCol, toRow, toCol, null, -1);
+    }
+
+    /**
+     * 按 {@link GameEngine#makeMove(int, int, int, int, Piece.Type, int)} 的规则语义执行一步着法（不做合法性校验）：
+     * 堆叠、吃子转换、携带上方棋子与兵卒升变的处理均与引擎一致。
+     *
+     * <p>每个棋盘改动都以可逆的原始操作记入预分配的撤销日志，{@link #simulateUndo()} 逆序回放即可精确复原
+     * （同一批棋子对象、棋子列表顺序与 Zobrist 键）；转换与升变产生的棋子从对象池取用，撤销后回收，稳态下不分配对象。</p>
+     */
+    public boolean simulateMove(int fromRow, int fromCol, int toRow, int toCol, Piece.Type promotionType,
+                                int selectedStackIndex) {
+        if (!isValid(fromRow, fromCol) || !isValid(toRow, toCol) || (fromRow == toRow && fromCol == toCol)) {
+            return false;
+        }
+        int from = square(fromRow, fromCol), to = square(toRow, toCol);
+        int h = heightAt(from);
+        if (h == 0) {
+            return false;
+        }
+        Piece piece;
+        if (selectedStackIndex >= 0 && selectedStackIndex < h) {
+            piece = pieceAt(from, selectedStackIndex);
+        } else if (selectedStackIndex == -1) {
+            piece = pieceAt(from, h - 1);
+        } else {
             return false;
         }
 
-        Piece capturedTop = getPiece(toRow, toCol);
-        List<Piece> capturedStack = capturedTop != null
-                ? new ArrayList<>(getStack(toRow, toCol))
-                : Collections.emptyList();
+        RuleSet rules = validator.getRulesConfig().getRuleSet();
+        boolean carry = selectedStackIndex >= 0 && rules.isStackingEnabled()
+                && rules.has(RuleRegistry.ALLOW_CARRY_PIECES_ABOVE);
+        int toHeight = heightAt(to);
+        Piece captured = toHeight == 0 ? null : pieceAt(to, toHeight - 1);
+        boolean stacking = false;
+        if (rules.isStackingEnabled() && captured != null && captured.isRed() == piece.isRed()
+                && toHeight < rules.getMaxStackingCount()) {
+            stacking = true;
+            captured = null;
+        }
+        boolean converted = captured != null && rules.has(RuleRegistry.ALLOW_CAPTURE_CONVERSION);
 
-        UndoRecord record = new UndoRecord();
-        record.fromRow = fromRow;
-        record.fromCol = fromCol;
-        record.toRow = toRow;
-        record.toCol = toCol;
-        record.movedPiece = piece;
-        record.capturedTop = capturedTop;
-        record.capturedStack = capturedStack;
-        undoStack.push(record);
+        int flags = stacking ? PackedMove.FLAG_STACKING : captured != null ? PackedMove.FLAG_CAPTURE : 0;
+        beginPly(PackedMove.of(fromRow, fromCol, toRow, toCol, selectedStackIndex, flags), piece, captured, converted);
 
-        removePiece(fromRow, fromCol);
-        piece.move(toRow, toCol);
-        setPiece(toRow, toCol, piece);
+        if (captured != null) {
+            logClear(to);
+        }
+        if (converted) {
+            // 吃子转换：被吃棋子就地变为己方，走子方留在原位
+            int code = PieceCode.of(captured.getType());
+            logCreate(to, PieceCode.type(PieceCode.kind(code) + (piece.isRed() ? 1 : 8)));
+        } else {
+            int level = selectedStackIndex >= 0 ? selectedStackIndex : h - 1;
+            int top = carry ? h - 1 : level;
+            // 自顶向下取下走子及其上方被携带的棋子，再按由底到顶的原顺序叠到目标格
+            int detached = logSize;
+            for (int l = top; l >= level; l--) {
+                logDetach(from, l);
+            }
+            for (int i = logSize - 1; i >= detached; i--) {
+                logAttach(to, logPieces[i]);
+            }
+            if (shouldPromote(piece, toRow, promotionType, rules)) {
+                logClear(to);
+                logCreate(to, promotionType);
+            }
+        }
 
-        Move move = new Move(fromRow, fromCol, toRow, toCol, piece, capturedTop);
-        simulatedMoves.add(move);
+        flipTurn();
+        positions.push(getZobristKey(), piece.isRed(), checkDetector().isInCheck(turn));
+        return true;
+    }
 
+    /** 空着记为不含撤销日志的一步，simulateUndo 照常换手并弹出局面历史 */
+    @Override
+    public boolean simulateNullMove() {
+        boolean red = turn;
+        beginPly(PackedMove.NONE, null, null, false);
         flipTurn();
+        positions.push(getZobristKey(), red, false);
         return true;
     }
 
+    @Override
+    public boolean isInCheck() {
+        return checkDetector().isInCheck(turn);
+    }
+
+    private CheckDetector checkDetector() {
+        if (checkDetector == null) {
+            checkDetector = new CheckDetector(this, validator);
+        }
+        return checkDetector;
+    }
+
+    /** 与 GameEngine 相同的升变判定：兵卒到达对方底线（或允许时到达己方底线）且指定了升变类型 */
+    private boolean shouldPromote(Piece piece, int toRow, Piece.Type promotionType, RuleSet rules) {
+        if (promotionType == null || !rules.has(RuleRegistry.PAWN_PROMOTION)
+                || (piece.getType() != Piece.Type.RED_SOLDIER && piece.getType() != Piece.Type.BLACK_SOLDIER)) {
+            return false;
+        }
+        int oppoRow, ownRow;
+        if (rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED)) {
+            oppoRow = piece.isRed() ? 4 : 13;
+            ownRow = piece.isRed() ? 13 : 4;
+        } else {
+            oppoRow = piece.isRed() ? 0 : (getRows() - 1);
+            ownRow = piece.isRed() ? (getRows() - 1) : 0;
+        }
+        return toRow == oppoRow || (toRow == ownRow && rules.has(RuleRegistry.ALLOW_OWN_BASE_LINE));
+    }
+
     @Override
     public boolean simulateUndo() {
-        if (undoStack.isEmpty()) {
+        if (plyCount == 0) {
             return false;
         }
+        plyCount--;
+        int start = plyLogStart[plyCount];
+        for (int i = logSize - 1; i >= start; i--) {
+            int op = logOps[i];
+            Piece p = logPieces[i];
+            if ((op & DETACH) != 0) {
+                attach(logSquares[i], logLevels[i], p, logIndices[i]);
+            } else {
+                detach(logSquares[i], logLevels[i]);
+                if ((op & CREATED) != 0) {
+                    releasePiece(p);
+                }
+            }
+            logPieces[i] = null;
+        }
+        logSize = start;
+        plyMoved[plyCount] = null;
+        plyCaptured[plyCount] = null;
+        flipTurn();
+        positions.pop();
+        return true;
+    }
 
-        UndoRecord record = undoStack.pop();
+    private void beginPly(int move, Piece moved, Piece captured, boolean converted) {
+        if (plyCount == plyMoves.length) {
+            int cap = Math.max(16, plyCount * 2);
+            plyMoves = Arrays.copyOf(plyMoves, cap);
+            plyLogStart = Arrays.copyOf(plyLogStart, cap);
+            plyConverted = Arrays.copyOf(plyConverted, cap);
+            plyMoved = Arrays.copyOf(plyMoved, cap);
+            plyCaptured = Arrays.copyOf(plyCaptured, cap);
+        }
+        plyMoves[plyCount] = move;
+        plyLogStart[plyCount] = logSize;
+        plyConverted[plyCount] = converted;
+        plyMoved[plyCount] = moved;
+        plyCaptured[plyCount] = captured;
+        plyCount++;
+    }
 
-        removePiece(record.toRow, record.toCol);
+    private void log(int op, int sq, int level, int index, Piece piece) {
+        if (logSize == logOps.length) {
+            int cap = Math.max(64, logSize * 2);
+            logOps = Arrays.copyOf(logOps, cap);
+            logSquares = Arrays.copyOf(logSquares, cap);
+            logLevels = Arrays.copyOf(logLevels, cap);
+            logIndices = Arrays.copyOf(logIndices, cap);
+            logPieces = Arrays.copyOf(logPieces, cap);
+        }
+        logOps[logSize] = op;
+        logSquares[logSize] = sq;
+        logLevels[logSize] = level;
+        logIndices[logSize] = index;
+        logPieces[logSize] = piece;
+        logSize++;
+    }
 
-        record.movedPiece.move(record.fromRow, record.fromCol);
-        pushToStack(record.fromRow, record.fromCol, record.movedPiece);
+    private void logDetach(int sq, int level) {
+        Piece p = pieceAt(sq, level);
+        log(DETACH, sq, level, detach(sq, level), p);
+    }
 
-        if (!record.capturedStack.isEmpty()) {
-            for (Piece p : record.capturedStack) {
-                Piece restored = new Piece(p.getType(), record.toRow, record.toCol);
-                pushToStack(record.toRow, record.toCol, restored);
-            }
+    private void logAttach(int sq, Piece piece) {
+        int level = heightAt(sq);
+        attach(sq, level, piece, -1);
+        log(ATTACH, sq, level, -1, piece);
+    }
+
+    private void logCreate(int sq, Piece.Type type) {
+        Piece piece = obtainPiece(type);
+        int level = heightAt(sq);
+        attach(sq, level, piece, -1);
+        log(ATTACH | CREATED, sq, level, -1, piece);
+    }
+
+    /** 自顶向下取下整格堆叠，对应 GameEngine 中的 setPiece / clearStack */
+    private void logClear(int sq) {
+        for (int level = heightAt(sq) - 1; level >= 0; level--) {
+            logDetach(sq, level);
         }
+    }
 
-        if (!simulatedMoves.isEmpty()) {
-            simulatedMoves.remove(simulatedMoves.size() - 1);
+    private Piece obtainPiece(Piece.Type type) {
+        int code = PieceCode.of(type);
+        int n = poolSizes[code];
+        if (n == 0) {
+            return new Piece(type, -1, -1);
         }
+        Piece p = piecePool[code][--n];
+        piecePool[code][n] = null;
+        poolSizes[code] = n;
+        return p;
+    }
 
-        flipTurn();
-        return true;
+    private void releasePiece(Piece p) {
+        int code = PieceCode.of(p.getType());
+        Piece[] pool = piecePool[code];
+        int n = poolSizes[code];
+        if (pool == null || n == pool.length) {
+            pool = piecePool[code] = pool == null ? new Piece[4] : Arrays.copyOf(pool, n * 2);
+        }
+        pool[n] = p;
+        poolSizes[code] = n + 1;
     }
 
     @Override
@@ -112,315 +333,305 @@ public class SimulationBoard extends Board implements SimulationContext {
 
     @Override
     public List<Move> getSimulatedMoves() {
-        return new ArrayList<>(simulatedMoves);
+        List<Move> moves = new ArrayList<>(plyCount);
+        for (int i = 0; i < plyCount; i++) {
+            int m = plyMoves[i];
+            if (m == PackedMove.NONE) continue;
+            Move move = new Move(PackedMove.fromRow(m), PackedMove.fromCol(m), PackedMove.toRow(m), PackedMove.toCol(m),
+                    plyMoved[i], plyCaptured[i]);
+            move.setStacking(PackedMove.isStacking(m));
+            move.setCaptureConversion(plyConverted[i]);
+            if (PackedMove.selectedStackIndex(m) >= 0) {
+                move.setSelectedStackIndex(PackedMove.selectedStackIndex(m));
+            }
+            moves.add(move);
+        }
+        return moves;
     }
 
+    /** 扁平数组复制出独立副本，不逐格分配堆叠列表；撤销栈与走子记录不随副本复制，局面历史以只读前缀共享，规则配置沿用本实例 */
     @Override
     public SimulationContext fork() {
         return new SimulationBoard(this);
     }
 
+    @Override
+    public int getRepetitionCount() {
+        return positions.repetitions();
+    }
+
+    @Override
+    public GameStatus getRepetitionStatus() {
+        return positions.adjudicate(PositionHistory.REPETITION_LIMIT);
+    }
+
+    /** 局面分由 {@link Board} 随每次落子/提子增量维护（子力值 + 可选位置分，见 {@link EvalTable}），O(1) 读取 */
     @Override
     public int evaluate() {
-        int score = 0;
-        for (int r = 0; r < getRows(); r++) {
-            for (int c = 0; c < getCols(); c++) {
-                Piece piece = getPiece(r, c);
-                if (piece == null) continue;
-                int value = getPieceValue(piece);
-                score += piece.isRed() ? value : -value;
-            }
-        }
+        int score = getEvalScore();
+        assert score == computeEvalScore() : "incremental evaluation diverged from full scan";
         return score;
     }
 
     /**
      * 检查当前规则配置是否为纯标准规则。
-     * 任何扩展规则开启时返回 false，此时 generateLegalMoves 回退到全遍历以确保正确性。
+     * 任何扩展规则开启时返回 false，此时 generateLegalMoves 改用 {@link MoveGenerator} 按规则生成候选并逐一校验。
      */
     private boolean isStandardRulesOnly() {
-        // 检查所有会影响走法生成的扩展规则
-        return !RulesConfigProvider.get().getBoolean("top_bottom_connected")
-            && !RulesConfigProvider.get().getBoolean("left_right_connected")
-            && !RulesConfigProvider.get().getBoolean("international_king")
-            && !RulesConfigProvider.get().getBoolean("international_advisor")
-            && !RulesConfigProvider.get().getBoolean("pawn_can_retreat")
-            && !RulesConfigProvider.get().getBoolean("allow_inside_retreat")
-            && !RulesConfigProvider.get().getBoolean("allow_flying_general")
-            && !RulesConfigProvider.get().getBoolean("no_river_limit")
-            && !RulesConfigProvider.get().getBoolean("unblock_piece")
-            && !RulesConfigProvider.get().getBoolean("allow_capture_own_piece")
-            && !RulesConfigProvider.get().getBoolean("allow_piece_stacking");
+        return validator.getRulesConfig().getRuleSet().isStandardMoveGeneration();
     }
 
     @Override
     public List<Move> generateLegalMoves() {
+        if (moveBuffer == null) {
+            moveBuffer = new int[PackedMove.BUFFER_SIZE];
+        }
+        int n = generateLegalMoves(moveBuffer);
+        List<Move> moves = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int m = moveBuffer[i];
+            int fr = PackedMove.fromRow(m), fc = PackedMove.fromCol(m);
+            int tr = PackedMove.toRow(m), tc = PackedMove.toCol(m);
+            moves.add(new Move(fr, fc, tr, tc, getPiece(fr, fc), getPiece(tr, tc)));
+        }
+        return moves;
+    }
+
+    @Override
+    public int generateLegalMoves(int[] buffer) {
         boolean currentTurnIsRed = isRedTurn();
         int H = getRows(), W = getCols();
+        int count = 0;
 
-        // 如果存在扩展规则，回退到全遍历以确保正确性
+        // 存在扩展规则时按规则生成候选目标再逐一校验，结果与全遍历一致
         if (!isStandardRulesOnly()) {
-            List<Move> moves = new ArrayList<>();
             for (int fr = 0; fr < H; fr++) {
                 for (int fc = 0; fc < W; fc++) {
-                    Piece piece = getPiece(fr, fc);
-                    if (piece == null || piece.isRed() != currentTurnIsRed) continue;
-                    for (int tr = 0; tr < H; tr++) {
-                        for (int tc = 0; tc < W; tc++) {
-                            if (fr == tr && fc == tc) continue;
-                            if (!isValidMove(fr, fc, tr, tc)) continue;
-                            moves.add(new Move(fr, fc, tr, tc, piece, getPiece(tr, tc)));
-                        }
+                    int code = topCodeAt(square(fr, fc));
+                    if (code == PieceCode.EMPTY || PieceCode.isRed(code) != currentTurnIsRed) continue;
+                    int n = generator.legalTargets(fr, fc, targetBuffer);
+                    for (int i = 0; i < n; i++) {
+                        if (count == buffer.length) return count;
+                        buffer[count++] = pack(fr, fc, targetBuffer[i] / COLS, targetBuffer[i] % COLS, currentTurnIsRed);
                     }
                 }
             }
-            return moves;
+            assert count == buffer.length || sameMoves(buffer, count)
+                    : "rule-aware move generation diverged from brute force";
+            return count;
         }
 
         // 标准规则：用候选位置加速
-        List<Move> moves = new ArrayList<>();
         for (int fr = 0; fr < H; fr++) {
             for (int fc = 0; fc < W; fc++) {
-                Piece piece = getPiece(fr, fc);
-                if (piece == null || piece.isRed() != currentTurnIsRed) continue;
-                for (int[] t : getCandidateTargets(fr, fc, piece)) {
-                    if (!isValidMove(fr, fc, t[0], t[1])) continue;
-                    moves.add(new Move(fr, fc, t[0], t[1], piece, getPiece(t[0], t[1])));
+                int code = topCodeAt(square(fr, fc));
+                if (code == PieceCode.EMPTY || PieceCode.isRed(code) != currentTurnIsRed) continue;
+                int n = collectCandidateTargets(fr, fc, code);
+                for (int i = 0; i < n; i++) {
+                    int tr = targetBuffer[i] / COLS, tc = targetBuffer[i] % COLS;
+                    if (!isValidMove(fr, fc, tr, tc)) continue;
+                    if (count == buffer.length) return count;
+                    buffer[count++] = pack(fr, fc, tr, tc, currentTurnIsRed);
                 }
             }
         }
-        return moves;
+        return count;
     }
 
     /**
-     * 根据棋子类型生成候选目标位置，仅生成该棋子可能走到的格子，
-     * 绕过棋盘上的其他棋子进行走法生成
+     * 逐格调用 isValidMove 的全遍历走法生成，作为规则感知生成器的对照基准
+     *
+     * @return 写入的着法数
      */
-    private List<int[]> getCandidateTargets(int fr, int fc, Piece piece) {
-        int H = getRows();
-        int W = getCols();
-        switch (piece.getType()) {
-            case RED_KING:
-            case BLACK_KING:
-                return kingTargets(fr, fc, H, W, piece);
-            case RED_ADVISOR:
-            case BLACK_ADVISOR:
-                return advisorTargets(fr, fc, H, W, piece);
-            case RED_ELEPHANT:
-            case BLACK_ELEPHANT:
-                return elephantTargets(fr, fc, H, W, piece);
-            case RED_HORSE:
-            case BLACK_HORSE:
-                return horseTargets(fr, fc, H, W, piece);
-            case RED_CHARIOT:
-            case BLACK_CHARIOT:
-                return chariotTargets(fr, fc, H, W, piece);
-            case RED_CANNON:
-            case BLACK_CANNON:
-                return cannonTargets(fr, fc, H, W, piece);
-            case RED_SOLDIER:
-            case BLACK_SOLDIER:
-                return soldierTargets(fr, fc, H, W, piece);
-            default:
-                return Collections.emptyList();
+    public int generateLegalMovesBruteForce(int[] buffer) {
+        boolean currentTurnIsRed = isRedTurn();
+        int H = getRows(), W = getCols();
+        int count = 0;
+        for (int fr = 0; fr < H; fr++) {
+            for (int fc = 0; fc < W; fc++) {
+                int code = topCodeAt(square(fr, fc));
+                if (code == PieceCode.EMPTY || PieceCode.isRed(code) != currentTurnIsRed) continue;
+                for (int tr = 0; tr < H; tr++) {
+                    for (int tc = 0; tc < W; tc++) {
+                        if (fr == tr && fc == tc) continue;
+                        if (!isValidMove(fr, fc, tr, tc)) continue;
+                        if (count == buffer.length) return count;
+                        buffer[count++] = pack(fr, fc, tr, tc, currentTurnIsRed);
+                    }
+                }
+            }
         }
+        return count;
     }
 
-    private void addIfValid(List<int[]> list, int r, int c, int H, int W) {
-        if (r >= 0 && r < H && c >= 0 && c < W) {
-            list.add(new int[]{r, c});
+    /** 仅在启用断言时调用：与全遍历结果逐项比对 */
+    private boolean sameMoves(int[] buffer, int count) {
+        int[] expected = new int[PackedMove.BUFFER_SIZE];
+        int n = generateLegalMovesBruteForce(expected);
+        if (n != count) return false;
+        for (int i = 0; i < n; i++) {
+            if (expected[i] != buffer[i]) return false;
         }
+        return true;
     }
 
-    private void addIfValid(List<int[]> list, int r, int c, int H, int W, int modR, int modC) {
-        int rr = (r % modR + modR) % modR;
-        int cc = (c % modC + modC) % modC;
-        if (rr >= 0 && rr < H && cc >= 0 && cc < W) {
-            list.add(new int[]{rr, cc});
-        }
+    @Override
+    public boolean simulateMove(int packedMove) {
+        return simulateMove(PackedMove.fromRow(packedMove), PackedMove.fromCol(packedMove),
+                PackedMove.toRow(packedMove), PackedMove.toCol(packedMove), null,
+                PackedMove.selectedStackIndex(packedMove));
     }
 
-    private List<int[]> kingTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
-        addIfValid(list, fr-1, fc, H, W);
-        addIfValid(list, fr+1, fc, H, W);
-        addIfValid(list, fr, fc-1, H, W);
-        addIfValid(list, fr, fc+1, H, W);
-        return list;
+    /** 按目标格顶层棋子为已通过校验的着法打包并附上吃子/堆叠标志 */
+    private int pack(int fr, int fc, int tr, int tc, boolean red) {
+        int target = topCodeAt(square(tr, tc));
+        int flags = 0;
+        if (target != PieceCode.EMPTY) {
+            if (PieceCode.isRed(target) != red) {
+                flags = PackedMove.FLAG_CAPTURE;
+            } else {
+                flags = validator.getRulesConfig().getRuleSet().isStackingEnabled()
+                        ? PackedMove.FLAG_STACKING : PackedMove.FLAG_CAPTURE;
+            }
+        }
+        return PackedMove.of(fr, fc, tr, tc, -1, flags);
     }
 
-    private List<int[]> advisorTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
-        addIfValid(list, fr-1, fc-1, H, W);
-        addIfValid(list, fr-1, fc+1, H, W);
-        addIfValid(list, fr+1, fc-1, H, W);
-        addIfValid(list, fr+1, fc+1, H, W);
-        return list;
+    /**
+     * 根据棋子类型将候选目标格写入 targetBuffer 并返回数量，仅生成该棋子可能走到的格子，
+     * 绕过棋盘上的其他棋子进行走法生成。步进类棋子直接遍历预计算的 {@link AttackTables}
+     */
+    private int collectCandidateTargets(int fr, int fc, int code) {
+        int H = getRows();
+        int W = getCols();
+        AttackTables tables = AttackTables.of(H, false, false);
+        int sq = square(fr, fc);
+        switch (PieceCode.kind(code)) {
+            case PieceCode.KING:
+                return copyTargets(tables.orth(sq));
+            case PieceCode.ADVISOR:
+                return copyTargets(tables.diag(sq));
+            case PieceCode.ELEPHANT:
+                return copyTargets(tables.elephant(sq));
+            case PieceCode.HORSE:
+                return copyTargets(tables.horse(sq));
+            case PieceCode.CHARIOT:
+                return chariotTargets(fr, fc, H, W);
+            case PieceCode.CANNON:
+                return cannonTargets(fr, fc, H, W);
+            case PieceCode.SOLDIER:
+                return soldierTargets(tables.orth(sq), PieceCode.isRed(code));
+            default:
+                return 0;
+        }
     }
 
-    private List<int[]> elephantTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
-        addIfValid(list, fr-2, fc-2, H, W);
-        addIfValid(list, fr-2, fc+2, H, W);
-        addIfValid(list, fr+2, fc-2, H, W);
-        addIfValid(list, fr+2, fc+2, H, W);
-        return list;
+    private int copyTargets(int[] entries) {
+        for (int i = 0; i < entries.length; i++) {
+            targetBuffer[i] = AttackTables.target(entries[i]);
+        }
+        return entries.length;
     }
 
-    private List<int[]> horseTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
-        addIfValid(list, fr-2, fc-1, H, W);
-        addIfValid(list, fr-2, fc+1, H, W);
-        addIfValid(list, fr+2, fc-1, H, W);
-        addIfValid(list, fr+2, fc+1, H, W);
-        addIfValid(list, fr-1, fc-2, H, W);
-        addIfValid(list, fr-1, fc+2, H, W);
-        addIfValid(list, fr+1, fc-2, H, W);
-        addIfValid(list, fr+1, fc+2, H, W);
-        return list;
+    private boolean occupied(int r, int c) {
+        return heightAt(square(r, c)) > 0;
     }
 
-    private List<int[]> chariotTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
+    private int chariotTargets(int fr, int fc, int H, int W) {
+        int n = 0;
         // 上
         for (int r = fr-1; r >= 0; r--) {
-            list.add(new int[]{r, fc});
-            if (getPiece(r, fc) != null) break;
+            targetBuffer[n++] = square(r, fc);
+            if (occupied(r, fc)) break;
         }
         // 下
         for (int r = fr+1; r < H; r++) {
-            list.add(new int[]{r, fc});
-            if (getPiece(r, fc) != null) break;
+            targetBuffer[n++] = square(r, fc);
+            if (occupied(r, fc)) break;
         }
         // 左
         for (int c = fc-1; c >= 0; c--) {
-            list.add(new int[]{fr, c});
-            if (getPiece(fr, c) != null) break;
+            targetBuffer[n++] = square(fr, c);
+            if (occupied(fr, c)) break;
         }
         // 右
         for (int c = fc+1; c < W; c++) {
-            list.add(new int[]{fr, c});
-            if (getPiece(fr, c) != null) break;
+            targetBuffer[n++] = square(fr, c);
+            if (occupied(fr, c)) break;
         }
-        return list;
+        return n;
     }
 
-    private List<int[]> cannonTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
+    private int cannonTargets(int fr, int fc, int H, int W) {
+        int n = 0;
         // 上：遇到第一个棋子前可以走，遇到后只能吃（跨过第一个棋子的下一个有棋子位置）
         boolean found = false;
         for (int r = fr-1; r >= 0; r--) {
             if (!found) {
-                if (getPiece(r, fc) == null) {
-                    list.add(new int[]{r, fc});  // 空格可走
+                if (!occupied(r, fc)) {
+                    targetBuffer[n++] = square(r, fc);  // 空格可走
                 } else {
                     found = true;  // 找到炮架
                 }
-            } else {
-                if (getPiece(r, fc) != null) {
-                    list.add(new int[]{r, fc});  // 炮架后的第一个棋子可吃
-                    break;
-                }
+            } else if (occupied(r, fc)) {
+                targetBuffer[n++] = square(r, fc);  // 炮架后的第一个棋子可吃
+                break;
             }
         }
         // 下
         found = false;
         for (int r = fr+1; r < H; r++) {
             if (!found) {
-                if (getPiece(r, fc) == null) {
-                    list.add(new int[]{r, fc});
+                if (!occupied(r, fc)) {
+                    targetBuffer[n++] = square(r, fc);
                 } else {
                     found = true;
                 }
-            } else {
-                if (getPiece(r, fc) != null) {
-                    list.add(new int[]{r, fc});
-                    break;
-                }
+            } else if (occupied(r, fc)) {
+                targetBuffer[n++] = square(r, fc);
+                break;
             }
         }
         // 左
         found = false;
         for (int c = fc-1; c >= 0; c--) {
             if (!found) {
-                if (getPiece(fr, c) == null) {
-                    list.add(new int[]{fr, c});
+                if (!occupied(fr, c)) {
+                    targetBuffer[n++] = square(fr, c);
                 } else {
                     found = true;
                 }
-            } else {
-                if (getPiece(fr, c) != null) {
-                    list.add(new int[]{fr, c});
-                    break;
-                }
+            } else if (occupied(fr, c)) {
+                targetBuffer[n++] = square(fr, c);
+                break;
             }
         }
         // 右
         found = false;
         for (int c = fc+1; c < W; c++) {
             if (!found) {
-                if (getPiece(fr, c) == null) {
-                    list.add(new int[]{fr, c});
+                if (!occupied(fr, c)) {
+                    targetBuffer[n++] = square(fr, c);
                 } else {
                     found = true;
                 }
-            } else {
-                if (getPiece(fr, c) != null) {
-                    list.add(new int[]{fr, c});
-                    break;
-                }
+            } else if (occupied(fr, c)) {
+                targetBuffer[n++] = square(fr, c);
+                break;
             }
         }
-        return list;
-    }
-
-    private List<int[]> soldierTargets(int fr, int fc, int H, int W, Piece p) {
-        List<int[]> list = new ArrayList<>();
-        boolean isRed = p.isRed();
-        // 前：红向上(row减小)，黑向下(row增大)
-        int forward = isRed ? -1 : 1;
-        addIfValid(list, fr+forward, fc, H, W);
-        // 左右（仅在过河后可用，但 isValidMove 会拦）
-        addIfValid(list, fr, fc-1, H, W);
-        addIfValid(list, fr, fc+1, H, W);
-        return list;
-    }
-
-    private static int getPieceValue(Piece piece) {
-        switch (piece.getType()) {
-            case RED_KING:
-            case BLACK_KING:
-                return 10000;
-            case RED_CHARIOT:
-            case BLACK_CHARIOT:
-                return 900;
-            case RED_CANNON:
-            case BLACK_CANNON:
-                return 450;
-            case RED_HORSE:
-            case BLACK_HORSE:
-                return 400;
-            case RED_ELEPHANT:
-            case BLACK_ELEPHANT:
-                return 200;
-            case RED_ADVISOR:
-            case BLACK_ADVISOR:
-                return 200;
-            case RED_SOLDIER:
-            case BLACK_SOLDIER:
-                return 100;
-            default:
-                return 0;
-        }
+        return n;
     }
 
-    static final class UndoRecord {
-        int fromRow;
-        int fromCol;
-        int toRow;
-        int toCol;
-        Piece movedPiece;
-        Piece capturedTop;
-        List<Piece> capturedStack;
+    private int soldierTargets(int[] orth, boolean isRed) {
+        int n = 0;
+        // 前：红向上(row减小)，黑向下(row增大)；左右仅在过河后可用，但 isValidMove 会拦
+        int backward = isRed ? 1 : -1;
+        for (int e : orth) {
+            if (AttackTables.dr(e) != backward) {
+                targetBuffer[n++] = AttackTables.target(e);
+            }
+        }
+        return n;
     }
 }
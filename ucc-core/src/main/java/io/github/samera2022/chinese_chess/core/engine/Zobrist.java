@@ -0,0 +1,59 @@
+package io.github.samera2022.chinese_chess.core.engine;
+
+/**
+ * Zobrist 哈希键表 - 由 {@link Board} 在每次落子/提子/换手时增量维护 64 位局面键
+ *
+ * <p>键由 (棋子编码, 格子, 堆叠层号) 三元组决定，因此同一组棋子以不同顺序叠放会得到不同的键。
+ * 标准尺寸内（18×9 棋盘、16 层以内）的键预先生成，超出部分按同一混淆函数现场计算，结果一致。</p>
+ */
+final class Zobrist {
+    private static final int MAX_SQUARES = Board.EXPANDED_ROWS * Board.COLS;
+    private static final int MAX_LEVELS = 16;
+    private static final long SEED = 0x5DEECE66DL;
+
+    /** 红方行棋时异或入键 */
+    static final long RED_TO_MOVE = mix(SEED ^ 0x7F4A7C15L);
+
+    private static final long[] PIECE_KEYS = new long[MAX_LEVELS * MAX_SQUARES * PieceCode.COUNT];
+
+    static {
+        for (int level = 0; level < MAX_LEVELS; level++) {
+            for (int sq = 0; sq < MAX_SQUARES; sq++) {
+                for (int code = 1; code < PieceCode.COUNT; code++) {
+                    PIECE_KEYS[index(code, sq, level)] = compute(code, sq, level);
+                }
+            }
+        }
+    }
+
+    private Zobrist() {}
+
+    private static int index(int code, int sq, int level) {
+        return (level * MAX_SQUARES + sq) * PieceCode.COUNT + code;
+    }
+
+    /** 棋子 code 位于 sq 格第 level 层时的键 */
+    static long piece(int code, int sq, int level) {
+        if (sq < MAX_SQUARES && level < MAX_LEVELS) {
+            return PIECE_KEYS[index(code, sq, level)];
+        }
+        return compute(code, sq, level);
+    }
+
+    /** 空棋盘的初始键，按行数区分不同尺寸的棋盘 */
+    static long empty(int rows) {
+        return mix(SEED + rows);
+    }
+
+    private static long compute(int code, int sq, int level) {
+        return mix(SEED + (((long) level << 32) | ((long) sq << 8) | code));
+    }
+
+    /** SplitMix64 终混函数 */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,226 @@
+package io.github.samera2022.chinese_chess.core.rules;
+
+import io.github.samera2022.chinese_chess.core.engine.Board;
+
+import java.util.Arrays;
+
+/**
+ * 按棋盘拓扑（行数 × 左右连通 × 上下连通）预计算的走子表 - 供 {@link MoveValidator} 与走法生成查表使用
+ *
+ * <p>每种拓扑只构建一次并缓存。表内容与 {@link MoveValidator} 原有的几何判定逐格等价：
+ * 成对关系（两格是否相邻、马腿、象眼）按校验器的公式穷举所有格对生成，
+ * 因此连通棋盘上马腿取“原始坐标差方向”的既有约定也被原样保留。</p>
+ *
+ * <p>逐格列表中的条目为打包 int：</p>
+ * <pre>
+ *   0-7   目标格
+ *   8-15  阻挡格（马腿/象眼），{@link #NO_BLOCK} 表示无
+ *   16-18 行偏移 + 2
+ *   19-21 列偏移 + 2
+ *   22    WRAP_ROW 经上下连通边
+ *   23    WRAP_COL 经左右连通边
+ * </pre>
+ */
+public final class AttackTables {
+    public static final int NO_BLOCK = 0xFF;
+    public static final int WRAP_ROW = 1 << 22;
+    public static final int WRAP_COL = 1 << 23;
+
+    /** {@link #step} 的返回标志：两格直向相邻（考虑连通后行列距离之和为 1） */
+    public static final int STEP_ORTH = 1;
+    /** {@link #step} 的返回标志：两格斜向相邻（考虑连通后行列距离均为 1） */
+    public static final int STEP_DIAG = 2;
+    public static final int STEP_WRAP_ROW = 4;
+    public static final int STEP_WRAP_COL = 8;
+    /** 有符号行方向：向上（行号减小） */
+    public static final int STEP_UP = 16;
+    /** 有符号行方向：向下（行号增大） */
+    public static final int STEP_DOWN = 32;
+
+    private static final int[][] ORTH_OFFSETS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] DIAG_OFFSETS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ELEPHANT_OFFSETS = {{-2, -2}, {-2, 2}, {2, -2}, {2, 2}};
+    private static final int[][] HORSE_OFFSETS = {
+            {-2, -1}, {-2, 1}, {2, -1}, {2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}};
+
+    /** 缓存下标：rows * 4 + (左右连通 ? 2 : 0) + (上下连通 ? 1 : 0)；表不可变，竞争构建无害 */
+    private static final AttackTables[] CACHE = new AttackTables[(Board.EXPANDED_ROWS + 1) * 4];
+
+    private final int rows;
+    private final int squares;
+    private final boolean wrapCols;
+    private final boolean wrapRows;
+
+    private final byte[] steps;
+    private final short[] horseBlocks;
+    private final short[] elephantBlocks;
+
+    private final int[][] orth;
+    private final int[][] diag;
+    private final int[][] horse;
+    private final int[][] elephant;
+
+    public static AttackTables of(int rows, boolean leftRightConnected, boolean topBottomConnected) {
+        int key = rows * 4 + (leftRightConnected ? 2 : 0) + (topBottomConnected ? 1 : 0);
+        if (key >= CACHE.length) {
+            return new AttackTables(rows, leftRightConnected, topBottomConnected);
+        }
+        AttackTables t = CACHE[key];
+        if (t == null) {
+            t = new AttackTables(rows, leftRightConnected, topBottomConnected);
+            CACHE[key] = t;
+        }
+        return t;
+    }
+
+    private AttackTables(int rows, boolean wrapCols, boolean wrapRows) {
+        this.rows = rows;
+        this.squares = rows * Board.COLS;
+        this.wrapCols = wrapCols;
+        this.wrapRows = wrapRows;
+        this.steps = new byte[squares * squares];
+        this.horseBlocks = new short[squares * squares];
+        this.elephantBlocks = new short[squares * squares];
+        for (int f = 0; f < squares; f++) {
+            for (int t = 0; t < squares; t++) {
+                int i = f * squares + t;
+                steps[i] = (byte) computeStep(f / Board.COLS, f % Board.COLS, t / Board.COLS, t % Board.COLS);
+                horseBlocks[i] = (short) computeHorseBlock(f / Board.COLS, f % Board.COLS, t / Board.COLS, t % Board.COLS);
+                elephantBlocks[i] = (short) computeElephantBlock(f / Board.COLS, f % Board.COLS, t / Board.COLS, t % Board.COLS);
+            }
+        }
+        this.orth = buildList(ORTH_OFFSETS, null);
+        this.diag = buildList(DIAG_OFFSETS, null);
+        this.horse = buildList(HORSE_OFFSETS, horseBlocks);
+        this.elephant = buildList(ELEPHANT_OFFSETS, elephantBlocks);
+    }
+
+    public int getRows() { return rows; }
+    public boolean isLeftRightConnected() { return wrapCols; }
+    public boolean isTopBottomConnected() { return wrapRows; }
+
+    /** 两格的相邻关系标志（STEP_*），不相邻返回 0 */
+    public int step(int from, int to) {
+        return steps[from * squares + to];
+    }
+
+    /** 若 from→to 为马步则返回马腿格，否则返回 -1 */
+    public int horseBlock(int from, int to) {
+        return horseBlocks[from * squares + to];
+    }
+
+    /** 若 from→to 为象步则返回象眼格，否则返回 -1 */
+    public int elephantBlock(int from, int to) {
+        return elephantBlocks[from * squares + to];
+    }
+
+    /** 直向一步的目标（上、下、左、右顺序） */
+    public int[] orth(int sq) { return orth[sq]; }
+
+    /** 斜向一步的目标（左上、右上、左下、右下顺序） */
+    public int[] diag(int sq) { return diag[sq]; }
+
+    /** 马步目标及马腿 */
+    public int[] horse(int sq) { return horse[sq]; }
+
+    /** 象步目标及象眼 */
+    public int[] elephant(int sq) { return elephant[sq]; }
+
+    public static int target(int entry) { return entry & 0xFF; }
+    public static int block(int entry) { return (entry >>> 8) & 0xFF; }
+    public static int dr(int entry) { return ((entry >>> 16) & 0x7) - 2; }
+    public static int dc(int entry) { return ((entry >>> 19) & 0x7) - 2; }
+
+    private int computeStep(int fr, int fc, int tr, int tc) {
+        int rd = Math.abs(tr - fr), er = wrapRows ? Math.min(rd, rows - rd) : rd;
+        int rcd = Math.abs(tc - fc), ec = wrapCols ? Math.min(rcd, Board.COLS - rcd) : rcd;
+        int flags;
+        if (er + ec == 1) flags = STEP_ORTH;
+        else if (er == 1 && ec == 1) flags = STEP_DIAG;
+        else return 0;
+        if (er != rd) flags |= STEP_WRAP_ROW;
+        if (ec != rcd) flags |= STEP_WRAP_COL;
+        if (er == 1) {
+            boolean down = (tr > fr) != (er != rd);
+            flags |= down ? STEP_DOWN : STEP_UP;
+        }
+        return flags;
+    }
+
+    private int computeHorseBlock(int fr, int fc, int tr, int tc) {
+        int H = rows, W = Board.COLS;
+        int rd = Math.abs(tr - fr), cd = Math.abs(tc - fc), er = rd, ec = cd;
+        boolean tw = wrapRows && rd > H / 2;
+        if (tw) er = H - rd;
+        boolean lw = wrapCols && cd > W / 2;
+        if (lw) ec = W - cd;
+        if (!((er == 1 && ec == 2) || (er == 2 && ec == 1))) return -1;
+        int mr, mc;
+        if (er == 1 && ec == 2) {
+            mr = fr;
+            int c = fc + (tc > fc ? 1 : -1);
+            mc = lw ? (c < 0 ? W - 1 : (c >= W ? 0 : c)) : c;
+        } else {
+            mc = fc;
+            int r = fr + (tr > fr ? 1 : -1);
+            mr = tw ? (r < 0 ? H - 1 : (r >= H ? 0 : r)) : r;
+        }
+        return mr * W + mc;
+    }
+
+    private int computeElephantBlock(int fr, int fc, int tr, int tc) {
+        int H = rows, W = Board.COLS;
+        int rd = Math.abs(tr - fr), cd = Math.abs(tc - fc), er = rd, ec = cd;
+        boolean tw = wrapRows && rd > H / 2;
+        if (tw) er = H - rd;
+        boolean lw = wrapCols && cd > W / 2;
+        if (lw) ec = W - cd;
+        if (er != 2 || ec != 2) return -1;
+        int mr = tw ? ((fr + tr + H) / 2) % H : (fr + tr) / 2;
+        int mc = lw ? ((fc + tc + W) / 2) % W : (fc + tc) / 2;
+        return mr * W + mc;
+    }
+
+    /**
+     * 按固定偏移顺序生成逐格列表，越界时按连通性回绕；
+     * 仅收录成对关系确认有效的目标，重复目标只保留第一次出现
+     */
+    private int[][] buildList(int[][] offsets, short[] blocks) {
+        int[][] lists = new int[squares][];
+        int[] buf = new int[offsets.length];
+        for (int f = 0; f < squares; f++) {
+            int fr = f / Board.COLS, fc = f % Board.COLS, n = 0;
+            for (int[] o : offsets) {
+                int r = fr + o[0], c = fc + o[1];
+                int entry = 0;
+                if (r < 0 || r >= rows) {
+                    if (!wrapRows) continue;
+                    r = (r + rows) % rows;
+                    entry |= WRAP_ROW;
+                }
+                if (c < 0 || c >= Board.COLS) {
+                    if (!wrapCols) continue;
+                    c = (c + Board.COLS) % Board.COLS;
+                    entry |= WRAP_COL;
+                }
+                int t = r * Board.COLS + c;
+                int block;
+                if (blocks != null) {
+                    block = blocks[f * squares + t];
+                    if (block < 0) continue;
+                } else {
+                    if (steps[f * squares + t] == 0) continue;
+                    block = NO_BLOCK;
+                }
+                boolean dup = false;
+                for (int k = 0; k < n; k++) {
+                    if (target(buf[k]) == t) { dup = true; break; }
+                }
+                if (dup) continue;
+                buf[n++] = entry | t | (block << 8) | ((o[0] + 2) << 16) | ((o[1] + 2) << 19);
+            }
+            lists[f] = Arrays.copyOf(buf, n);
+        }
+        return lists;
+    }
+}
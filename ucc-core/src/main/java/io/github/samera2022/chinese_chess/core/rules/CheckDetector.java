@@ -1,8 +1,9 @@
 package io.github.samera2022.chinese_chess.core.rules;
 
 import io.github.samera2022.chinese_chess.core.engine.Board;
-import io.github.samera2022.chinese_chess.core.engine.SimulationBoard;
+import io.github.samera2022.chinese_chess.core.engine.PieceCode;
 import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
 
 /**
  * 将军检测器 - 检测是否有棋子在将军
@@ -10,6 +11,10 @@ import io.github.samera2022.chinese_chess.common.model.Piece;
 public class CheckDetector {
     private Board board;
     private MoveValidator validator;
+    /** 将死搜索复用的试探记录与目标缓冲区 */
+    private final Board.Probe probe = new Board.Probe();
+    private MoveGenerator generator;
+    private int[] targets;
 
     public CheckDetector(Board board, MoveValidator validator) {
         this.board = board;
@@ -18,28 +23,113 @@ public class CheckDetector {
 
     /**
      * 检查某一方的王是否被将（受到攻击）
+     *
+     * <p>从王所在格向外反查：直线/斜线射线上的前两个棋子、马步、象步及王周一圈，
+     * 只对其中含有敌方棋子的格子调用 {@link MoveValidator}，代价与射线数相当而不是敌子数 × 校验。
+     * 判定结果与逐个敌子校验完全一致（含连通棋盘与堆叠棋盘）。</p>
      */
     public boolean isInCheck(boolean isRed) {
         Piece king = isRed ? board.getRedKing() : board.getBlackKing();
         if (king == null) {
             return false;
         }
+        boolean attacked = isAttacked(king.getRow(), king.getCol(), isRed);
+        assert attacked == isInCheckByScan(king, isRed) : "reverse attack detection diverged from piece scan";
+        return attacked;
+    }
 
-        // 遍历对方的所有棋子，检查是否有能够攻击到王的
-        java.util.List<Piece> enemyPieces = isRed ? board.getBlackPieces() : board.getRedPieces();
+    private boolean isAttacked(int kr, int kc, boolean isRed) {
+        RuleSet rules = validator.getRulesConfig().getRuleSet();
+        boolean lr = rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED);
+        boolean tb = rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED);
+        int H = board.getRows();
+        int k = Board.square(kr, kc);
+
+        // 将帅、仕士、兵卒：王周一圈
+        AttackTables ring = AttackTables.of(H, lr, tb);
+        if (anyAttacker(ring.orth(k), kr, kc, isRed) || anyAttacker(ring.diag(k), kr, kc, isRed)) return true;
+        // 马、象：走法几何对称，从王出发的马步/象步即为可能的攻击来源
+        AttackTables horse = AttackTables.of(H, lr && rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED_HORSE),
+                tb && rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED_HORSE));
+        if (anyAttacker(horse.horse(k), kr, kc, isRed)) return true;
+        AttackTables elephant = AttackTables.of(H, lr && rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED_ELEPHANT),
+                tb && rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED_ELEPHANT));
+        if (anyAttacker(elephant.elephant(k), kr, kc, isRed)) return true;
+        // 车、炮、对将、国际化仕直走：直线上的第一个与第二个棋子
+        if (rayAttacker(kr, kc, -1, 0, tb, false, 2, isRed)
+                || rayAttacker(kr, kc, 1, 0, tb, false, 2, isRed)
+                || rayAttacker(kr, kc, 0, -1, false, lr, 2, isRed)
+                || rayAttacker(kr, kc, 0, 1, false, lr, 2, isRed)) return true;
+        // 国际化仕斜走：斜线上的第一个棋子，仅跨列回绕
+        if (rules.has(RuleRegistry.INTERNATIONAL_ADVISOR)) {
+            return rayAttacker(kr, kc, -1, -1, false, lr, 1, isRed)
+                    || rayAttacker(kr, kc, -1, 1, false, lr, 1, isRed)
+                    || rayAttacker(kr, kc, 1, -1, false, lr, 1, isRed)
+                    || rayAttacker(kr, kc, 1, 1, false, lr, 1, isRed);
+        }
+        return false;
+    }
+
+    private boolean anyAttacker(int[] entries, int kr, int kc, boolean isRed) {
+        for (int e : entries) {
+            if (isAttacker(AttackTables.target(e), kr, kc, isRed)) return true;
+        }
+        return false;
+    }
+
+    /** 沿射线检查前 maxHits 个棋子，按连通性回绕，回到王所在格即停止 */
+    private boolean rayAttacker(int kr, int kc, int dr, int dc, boolean wrapRows, boolean wrapCols, int maxHits,
+                                boolean isRed) {
+        int H = board.getRows();
+        int r = kr, c = kc, hits = 0;
+        while (true) {
+            r += dr;
+            c += dc;
+            if (r < 0 || r >= H) {
+                if (!wrapRows) return false;
+                r = (r + H) % H;
+            }
+            if (c < 0 || c >= Board.COLS) {
+                if (!wrapCols) return false;
+                c = (c + Board.COLS) % Board.COLS;
+            }
+            if (r == kr && c == kc) return false;
+            int sq = Board.square(r, c);
+            if (board.heightAt(sq) == 0) continue;
+            if (isAttacker(sq, kr, kc, isRed)) return true;
+            if (++hits == maxHits) return false;
+        }
+    }
 
+    /** 该格含有敌方棋子（任意层），且其顶层棋子能走到王所在格 */
+    private boolean isAttacker(int sq, int kr, int kc, boolean isRed) {
+        int height = board.heightAt(sq);
+        boolean hasEnemy = false;
+        for (int level = 0; level < height; level++) {
+            if (PieceCode.isRed(board.codeAt(sq, level)) != isRed) {
+                hasEnemy = true;
+                break;
+            }
+        }
+        return hasEnemy && validator.isValidMove(sq / Board.COLS, sq % Board.COLS, kr, kc);
+    }
+
+    /** 逐个敌子校验的原始判定，仅在启用断言时用于对照 */
+    private boolean isInCheckByScan(Piece king, boolean isRed) {
+        java.util.List<Piece> enemyPieces = isRed ? board.getBlackPieces() : board.getRedPieces();
         for (Piece enemyPiece : enemyPieces) {
-            // 检查敌棋是否能攻击到王
             if (validator.isValidMove(enemyPiece.getRow(), enemyPiece.getCol(), king.getRow(), king.getCol())) {
                 return true;
             }
         }
-
         return false;
     }
 
     /**
      * 检查某一方是否被将死（无法走棋且被将）
+     *
+     * <p>在原棋盘上原地试探每个候选着法并立即撤销，找到第一个脱将着法即返回，
+     * 不再为每个着法复制棋盘。</p>
      */
     public boolean isCheckmate(boolean isRed) {
         // 首先必须在将状态
@@ -47,18 +137,19 @@ public class CheckDetector {
             return false;
         }
 
-        // 检查是否有任何合法的着法可以脱离将
-        java.util.List<Piece> pieces = isRed ? board.getRedPieces() : board.getBlackPieces();
-
-        for (Piece piece : pieces) {
-            for (int row = 0; row < board.getRows(); row++) {
-                for (int col = 0; col < board.getCols(); col++) {
-                    if (validator.isValidMove(piece.getRow(), piece.getCol(), row, col)) {
-                        // 尝试这一步棋是否能脱离将
-                        if (canEscapeCheck(piece, row, col, isRed)) {
-                            return false; // 有办法脱离将
-                        }
-                    }
+        if (generator == null) {
+            generator = new MoveGenerator(board, validator);
+            targets = new int[board.getRows() * Board.COLS];
+        }
+        // 检查是否有任何合法的着法可以脱离将：含有己方棋子的格子（任意层）由顶层棋子试走
+        int squares = board.getRows() * Board.COLS;
+        for (int sq = 0; sq < squares; sq++) {
+            if (!containsSide(sq, isRed)) continue;
+            int fr = sq / Board.COLS, fc = sq % Board.COLS;
+            int n = generator.legalTargets(fr, fc, targets);
+            for (int i = 0; i < n; i++) {
+                if (canEscapeCheck(fr, fc, targets[i] / Board.COLS, targets[i] % Board.COLS, isRed)) {
+                    return false; // 有办法脱离将
                 }
             }
         }
@@ -67,24 +158,23 @@ public class CheckDetector {
         return true;
     }
 
+    private boolean containsSide(int sq, boolean isRed) {
+        int height = board.heightAt(sq);
+        for (int level = 0; level < height; level++) {
+            if (PieceCode.isRed(board.codeAt(sq, level)) == isRed) return true;
+        }
+        return false;
+    }
+
     /**
-     * 检查移动后是否能脱离将
+     * 检查移动后是否能脱离将：顶层棋子走到目标格并移除目标格原有堆叠，试探后立即撤销
      */
-    private boolean canEscapeCheck(Piece piece, int toRow, int toCol, boolean isRed) {
-        // 创建轻量级副本进行试探（SimulationBoard 构造即深拷贝）
-        SimulationBoard simBoard = new SimulationBoard(board);
-        // 在副本上操作对应棋子
-        Piece simPiece = simBoard.getPiece(piece.getRow(), piece.getCol());
-        if (simPiece == null) return false;
-
-        // 执行试探走子
-        simBoard.removePiece(simPiece.getRow(), simPiece.getCol());
-        simBoard.clearStack(toRow, toCol);        // 清除目标位置
-        simPiece.move(toRow, toCol);
-        simBoard.pushToStack(toRow, toCol, simPiece);
-
-        // 在副本上检查
-        CheckDetector simDetector = new CheckDetector(simBoard, new MoveValidator(simBoard, validator.getRulesConfig()));
-        return !simDetector.isInCheck(isRed);
+    private boolean canEscapeCheck(int fromRow, int fromCol, int toRow, int toCol, boolean isRed) {
+        if (!board.probeMove(fromRow, fromCol, toRow, toCol, probe)) return false;
+        try {
+            return !isInCheck(isRed);
+        } finally {
+            board.undoProbe(probe);
+        }
     }
 }
@@ -4,17 +4,16 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * 游戏规则配置 - 统一管理所有游戏规则
@@ -22,7 +21,23 @@ import java.util.concurrent.TimeoutException;
  */
 @SuppressWarnings("unused")
 public class GameRulesConfig {
-    private final Map<String, Object> ruleValues = new HashMap<>();
+    /**
+     * 当前规则取值、编译快照与版本号，整体不可变、一次性替换；读取只需一次 volatile 读。
+     * 修改在 synchronized 中基于当前取值复制一份、完成一致性修正后再发布
+     */
+    private volatile State state;
+
+    private static final class State {
+        final Map<String, Object> values;
+        final RuleSet ruleSet;
+        final long version;
+
+        State(Map<String, Object> values, long version) {
+            this.values = Collections.unmodifiableMap(values);
+            this.ruleSet = RuleSet.compile(values);
+            this.version = version;
+        }
+    }
 
     public enum ChangeSource {
         UI,
@@ -32,48 +47,86 @@ public class GameRulesConfig {
         INTERNAL_CONSISTENCY
     }
 
+    /** 单条规则变更 */
+    public static final class RuleChange {
+        public final String key;
+        public final Object oldValue;
+        public final Object newValue;
+        public final ChangeSource source;
+
+        RuleChange(String key, Object oldValue, Object newValue, ChangeSource source) {
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.source = source;
+        }
+    }
+
     public interface RuleChangeListener {
         void onRuleChanged(String key, Object oldValue, Object newValue, ChangeSource source);
+
+        /**
+         * 一次 set / applySnapshot 产生的全部变更（含随后的一致性修正），按发生顺序一次送达。
+         * 默认逐条转发给 {@link #onRuleChanged}；只需在变更后整体刷新的监听器可覆盖此方法
+         *
+         * @param version 这批变更生效后的规则版本号
+         */
+        default void onRulesChanged(List<RuleChange> changes, long version) {
+            for (RuleChange c : changes) {
+                onRuleChanged(c.key, c.oldValue, c.newValue, c.source);
+            }
+        }
     }
 
-    private final List<RuleChangeListener> changeListeners = new ArrayList<>();
+    private final CopyOnWriteArrayList<RuleChangeListener> changeListeners = new CopyOnWriteArrayList<>();
     private static final ExecutorService NOTIFY_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "RuleChangeNotifier");
         t.setDaemon(true);
         return t;
     });
-    private static final ExecutorService LISTENER_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "RuleChangeListener");
-        t.setDaemon(true);
-        return t;
-    });
 
     public GameRulesConfig() {
         resetToDefault();
     }
 
     public synchronized void resetToDefault() {
-        ruleValues.clear();
+        Map<String, Object> values = new HashMap<>();
         for (RuleRegistry rule : RuleRegistry.values()) {
-            ruleValues.put(rule.registryName, rule.defaultValue);
+            values.put(rule.registryName, rule.defaultValue);
         }
-        enforceRuleConsistency(ChangeSource.API);
+        List<RuleChange> changes = new ArrayList<>();
+        enforceRuleConsistency(values, ChangeSource.API, changes);
+        publish(values, changes);
     }
 
     public synchronized void set(String registryName, Object value, ChangeSource source) {
-        Object oldValue = ruleValues.get(registryName);
+        Map<String, Object> current = state.values;
+        Object oldValue = current.get(registryName);
         if (Objects.equals(oldValue, value)) {
             return;
         }
-        ruleValues.put(registryName, value);
-        notifyRuleChange(registryName, oldValue, value, source);
+        Map<String, Object> values = new HashMap<>(current);
+        values.put(registryName, value);
+        List<RuleChange> changes = new ArrayList<>();
+        changes.add(new RuleChange(registryName, oldValue, value, source));
         if (source != ChangeSource.INTERNAL_CONSISTENCY) {
-            enforceRuleConsistency(ChangeSource.INTERNAL_CONSISTENCY);
+            enforceRuleConsistency(values, ChangeSource.INTERNAL_CONSISTENCY, changes);
         }
+        publish(values, changes);
     }
 
-    public synchronized boolean getBoolean(String registryName) {
-        Object value = ruleValues.get(registryName);
+    /** 当前规则的不可变快照，供走法校验等热路径免锁读取 */
+    public RuleSet getRuleSet() {
+        return state.ruleSet;
+    }
+
+    /** 规则版本号，每次实际发生变化后递增；版本未变时依赖规则的缓存仍然有效 */
+    public long getVersion() {
+        return state.version;
+    }
+
+    public boolean getBoolean(String registryName) {
+        Object value = state.values.get(registryName);
         if (value instanceof Boolean) {
             return (Boolean) value;
         }
@@ -83,8 +136,8 @@ public class GameRulesConfig {
         return false;
     }
 
-    public synchronized int getInt(String registryName) {
-        Object value = ruleValues.get(registryName);
+    public int getInt(String registryName) {
+        Object value = state.values.get(registryName);
         if (value instanceof Number) {
             return ((Number) value).intValue();
         }
@@ -99,25 +152,26 @@ public class GameRulesConfig {
         return 0;
     }
 
-    public synchronized String getString(String registryName) {
-        Object value = ruleValues.get(registryName);
+    public String getString(String registryName) {
+        Object value = state.values.get(registryName);
         return value != null ? String.valueOf(value) : null;
     }
 
-    public synchronized Map<String, Object> getAllValues() {
-        return new HashMap<>(ruleValues);
+    /** 当前全部规则取值的只读快照，之后的修改不会反映到返回的 Map 中 */
+    public Map<String, Object> getAllValues() {
+        return state.values;
     }
 
-    private synchronized void enforceRuleConsistency(ChangeSource source) {
-        boolean iterationChanged;
+    /**
+     * 反复关闭依赖未满足或存在冲突的已开启规则，直到不再变化。每一轮先按本轮开始时的取值找出全部违规项，
+     * 再统一关闭，与逐轮复制整张表的判定结果相同
+     */
+    private static void enforceRuleConsistency(Map<String, Object> values, ChangeSource source, List<RuleChange> changes) {
+        List<RuleRegistry> violations = new ArrayList<>();
         do {
-            iterationChanged = false;
-            Map<String, Object> currentValuesSnapshot = new HashMap<>(ruleValues);
-
+            violations.clear();
             for (RuleRegistry rule : RuleRegistry.values()) {
-                String registryName = rule.registryName;
-
-                Object value = currentValuesSnapshot.get(registryName);
+                Object value = values.get(rule.registryName);
                 boolean isEnabled = false;
                 if (value instanceof Boolean) {
                     isEnabled = (Boolean) value;
@@ -125,53 +179,53 @@ public class GameRulesConfig {
                     isEnabled = Boolean.parseBoolean((String) value);
                 }
 
-                if (isEnabled && !rule.canBeEnabled(currentValuesSnapshot)) {
-                    set(registryName, false, source);
-                    iterationChanged = true;
+                if (isEnabled && !rule.canBeEnabled(values)) {
+                    violations.add(rule);
                 }
             }
-        } while (iterationChanged);
+            for (RuleRegistry rule : violations) {
+                Object oldValue = values.put(rule.registryName, false);
+                changes.add(new RuleChange(rule.registryName, oldValue, false, source));
+            }
+        } while (!violations.isEmpty());
     }
 
-    public void addRuleChangeListener(RuleChangeListener l) {
-        if (l == null) return;
-        synchronized (changeListeners) {
-            if (!changeListeners.contains(l)) {
-                changeListeners.add(l);
-            }
+    /** 发布新取值并将本次变更作为一批异步通知；没有变更时不发布 */
+    private void publish(Map<String, Object> values, List<RuleChange> changes) {
+        State previous = state;
+        if (previous != null && changes.isEmpty() && previous.values.equals(values)) {
+            return;
+        }
+        State next = new State(values, previous == null ? 0 : previous.version + 1);
+        state = next;
+        if (changes.isEmpty() || changeListeners.isEmpty()) {
+            return;
         }
+        List<RuleChange> batch = Collections.unmodifiableList(changes);
+        NOTIFY_EXECUTOR.submit(() -> {
+            for (RuleChangeListener l : changeListeners) {
+                try {
+                    l.onRulesChanged(batch, next.version);
+                } catch (Throwable inner) {
+                    System.err.println("[GameRulesConfig] listener threw: " + inner);
+                }
+            }
+        });
     }
 
-    public void removeRuleChangeListener(RuleChangeListener l) {
+    public void addRuleChangeListener(RuleChangeListener l) {
         if (l == null) return;
-        synchronized (changeListeners) {
-            changeListeners.remove(l);
-        }
+        changeListeners.addIfAbsent(l);
     }
 
-    private void notifyRuleChange(String key, Object oldV, Object newV, ChangeSource src) {
-        List<RuleChangeListener> copy;
-        synchronized (changeListeners) {
-            copy = new ArrayList<>(changeListeners);
-        }
-        if (!copy.isEmpty()) {
-            NOTIFY_EXECUTOR.submit(() -> {
-                for (RuleChangeListener l : copy) {
-                    LISTENER_EXECUTOR.submit(() -> {
-                        try {
-                            l.onRuleChanged(key, oldV, newV, src);
-                        } catch (Throwable inner) {
-                            System.err.println("[GameRulesConfig] listener threw: " + inner);
-                        }
-                    });
-                }
-            });
-        }
+    public void removeRuleChangeListener(RuleChangeListener l) {
+        if (l == null) return;
+        changeListeners.remove(l);
     }
 
-    public synchronized JsonObject toJson() {
+    public JsonObject toJson() {
         JsonObject json = new JsonObject();
-        for (Map.Entry<String, Object> entry : ruleValues.entrySet()) {
+        for (Map.Entry<String, Object> entry : state.values.entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
             if (value instanceof Boolean) {
@@ -185,9 +239,12 @@ public class GameRulesConfig {
         return json;
     }
 
+    /** 按快照批量修改规则；全部变更（含一致性修正）一次发布、作为一批通知 */
     public synchronized void applySnapshot(JsonObject snapshot, ChangeSource source) {
         if (snapshot == null) return;
-        
+
+        Map<String, Object> values = new HashMap<>(state.values);
+        List<RuleChange> changes = new ArrayList<>();
         for (Map.Entry<String, JsonElement> entry : snapshot.entrySet()) {
             String key = entry.getKey();
             JsonElement el = entry.getValue();
@@ -201,14 +258,15 @@ public class GameRulesConfig {
                     newValue = el.getAsString();
                 }
                 
-                Object oldValue = ruleValues.get(key);
+                Object oldValue = values.get(key);
                 if (!Objects.equals(oldValue, newValue)) {
-                    ruleValues.put(key, newValue);
-                    notifyRuleChange(key, oldValue, newValue, source);
+                    values.put(key, newValue);
+                    changes.add(new RuleChange(key, oldValue, newValue, source));
                 }
             }
         }
-        enforceRuleConsistency(ChangeSource.INTERNAL_CONSISTENCY);
+        enforceRuleConsistency(values, ChangeSource.INTERNAL_CONSISTENCY, changes);
+        publish(values, changes);
     }
 
     /**
@@ -216,9 +274,7 @@ public class GameRulesConfig {
      * 此处不再关闭共享的线程池，避免多实例场景下的线程泄漏。
      */
     public void shutdown() {
-        synchronized (changeListeners) {
-            changeListeners.clear();
-        }
+        changeListeners.clear();
     }
 
     /**
@@ -227,9 +283,7 @@ public class GameRulesConfig {
     public static void shutdownExecutors() {
         try {
             NOTIFY_EXECUTOR.shutdownNow();
-            LISTENER_EXECUTOR.shutdownNow();
             NOTIFY_EXECUTOR.awaitTermination(200, TimeUnit.MILLISECONDS);
-            LISTENER_EXECUTOR.awaitTermination(200, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -0,0 +1,233 @@
+package io.github.samera2022.chinese_chess.core.rules;
+
+import io.github.samera2022.chinese_chess.common.model.Piece;
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
+import io.github.samera2022.chinese_chess.core.engine.Board;
+import io.github.samera2022.chinese_chess.core.engine.PieceCode;
+
+import java.util.Arrays;
+
+/**
+ * 扩展规则下的候选目标生成器 - 替代逐格对 {@link MoveValidator#isValidMove} 的穷举
+ *
+ * <p>对每个棋子只生成在当前规则下“可能合法”的目标格（上下/左右连通、飞将、国际化王/仕、
+ * 兵卒后退、取消卡子、堆叠等均已计入），再交给 {@link MoveValidator} 做最终判定。
+ * 候选集是合法目标的超集，且按格子索引升序去重输出，因此校验后的结果与穷举完全一致、顺序相同。</p>
+ *
+ * <p>非线程安全：内部复用去重标记数组，每个棋盘持有自己的实例。</p>
+ */
+public final class MoveGenerator {
+    private static final int SLIDE = 0;
+    private static final int CANNON = 1;
+    private static final int RED_KING = PieceCode.of(Piece.Type.RED_KING);
+    private static final int BLACK_KING = PieceCode.of(Piece.Type.BLACK_KING);
+
+    private final Board board;
+    private final MoveValidator validator;
+    private final int[] stamps;
+    private int stamp;
+
+    public MoveGenerator(Board board, MoveValidator validator) {
+        this.board = board;
+        this.validator = validator;
+        this.stamps = new int[board.getRows() * Board.COLS];
+    }
+
+    /**
+     * 将 (fr, fc) 顶层棋子经校验的合法目标格按升序写入 out
+     *
+     * @param out 容量不小于棋盘格数
+     * @return 合法目标数
+     */
+    public int legalTargets(int fr, int fc, int[] out) {
+        return legalTargets(fr, fc, -1, out);
+    }
+
+    /**
+     * 将 (fr, fc) 堆叠中第 selectedStackIndex 层（-1 为顶层）棋子经校验的合法目标格按升序写入 out，
+     * 校验同 {@link MoveValidator#isValidMove(int, int, int, int, int)}
+     *
+     * @param out 容量不小于棋盘格数
+     * @return 合法目标数；层号越界时为 0
+     */
+    public int legalTargets(int fr, int fc, int selectedStackIndex, int[] out) {
+        int from = Board.square(fr, fc);
+        int code;
+        if (selectedStackIndex < 0) {
+            code = board.topCodeAt(from);
+        } else if (selectedStackIndex < board.heightAt(from)) {
+            code = board.codeAt(from, selectedStackIndex);
+        } else {
+            return 0;
+        }
+        int n = candidateTargets(fr, fc, code, out);
+        int legal = 0;
+        for (int i = 0; i < n; i++) {
+            int t = out[i];
+            if (validator.isValidMove(fr, fc, t / Board.COLS, t % Board.COLS, selectedStackIndex)) {
+                out[legal++] = t;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * 将 (fr, fc) 顶层棋子的候选目标格（未经校验、升序、去重）写入 out
+     *
+     * @param out 容量不小于棋盘格数
+     * @return 候选数
+     */
+    public int candidateTargets(int fr, int fc, int[] out) {
+        return candidateTargets(fr, fc, board.topCodeAt(Board.square(fr, fc)), out);
+    }
+
+    /** 候选目标只取决于棋子种类、颜色与所在格，堆叠中下层棋子与顶层棋子按同一方式生成 */
+    private int candidateTargets(int fr, int fc, int code, int[] out) {
+        int from = Board.square(fr, fc);
+        if (code == PieceCode.EMPTY) return 0;
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        stamps[from] = stamp;
+
+        RuleSet rules = validator.getRulesConfig().getRuleSet();
+        int H = board.getRows();
+        boolean lr = rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED);
+        boolean tb = rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED);
+        int n = 0;
+        switch (PieceCode.kind(code)) {
+            case PieceCode.KING: {
+                AttackTables t = AttackTables.of(H, lr, tb);
+                n = addEntries(t.orth(from), out, n);
+                n = addEntries(t.diag(from), out, n);
+                n = addFacingKings(fr, fc, PieceCode.isRed(code), out, n);
+                break;
+            }
+            case PieceCode.ADVISOR: {
+                if (!rules.has(RuleRegistry.INTERNATIONAL_ADVISOR)) {
+                    n = addEntries(AttackTables.of(H, lr, tb).diag(from), out, n);
+                } else {
+                    n = addOrthRays(fr, fc, lr, tb, SLIDE, out, n);
+                    // 斜向只在左右连通时跨列回绕，行方向不回绕
+                    n = addRay(fr, fc, -1, -1, false, lr, SLIDE, out, n);
+                    n = addRay(fr, fc, -1, 1, false, lr, SLIDE, out, n);
+                    n = addRay(fr, fc, 1, -1, false, lr, SLIDE, out, n);
+                    n = addRay(fr, fc, 1, 1, false, lr, SLIDE, out, n);
+                }
+                break;
+            }
+            case PieceCode.ELEPHANT: {
+                boolean lw = lr && rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED_ELEPHANT);
+                boolean tw = tb && rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED_ELEPHANT);
+                n = addEntries(AttackTables.of(H, lw, tw).elephant(from), out, n);
+                break;
+            }
+            case PieceCode.HORSE: {
+                boolean lw = lr && rules.has(RuleRegistry.LEFT_RIGHT_CONNECTED_HORSE);
+                boolean tw = tb && rules.has(RuleRegistry.TOP_BOTTOM_CONNECTED_HORSE);
+                n = addEntries(AttackTables.of(H, lw, tw).horse(from), out, n);
+                break;
+            }
+            case PieceCode.CHARIOT:
+                n = addOrthRays(fr, fc, lr, tb, SLIDE, out, n);
+                break;
+            case PieceCode.CANNON:
+                n = addOrthRays(fr, fc, lr, tb, CANNON, out, n);
+                break;
+            case PieceCode.SOLDIER:
+                n = addEntries(AttackTables.of(H, lr, tb).orth(from), out, n);
+                break;
+            default:
+                break;
+        }
+        sort(out, n);
+        return n;
+    }
+
+    private int add(int sq, int[] out, int n) {
+        if (stamps[sq] != stamp) {
+            stamps[sq] = stamp;
+            out[n++] = sq;
+        }
+        return n;
+    }
+
+    private int addEntries(int[] entries, int[] out, int n) {
+        for (int e : entries) {
+            n = add(AttackTables.target(e), out, n);
+        }
+        return n;
+    }
+
+    /** 同行同列上顶层为敌方将帅的格子（对将/飞将吃王的候选） */
+    private int addFacingKings(int fr, int fc, boolean red, int[] out, int n) {
+        int enemyKing = red ? BLACK_KING : RED_KING;
+        for (int c = 0; c < Board.COLS; c++) {
+            int sq = Board.square(fr, c);
+            if (board.topCodeAt(sq) == enemyKing) n = add(sq, out, n);
+        }
+        for (int r = 0; r < board.getRows(); r++) {
+            int sq = Board.square(r, fc);
+            if (board.topCodeAt(sq) == enemyKing) n = add(sq, out, n);
+        }
+        return n;
+    }
+
+    private int addOrthRays(int fr, int fc, boolean lr, boolean tb, int mode, int[] out, int n) {
+        n = addRay(fr, fc, -1, 0, tb, false, mode, out, n);
+        n = addRay(fr, fc, 1, 0, tb, false, mode, out, n);
+        n = addRay(fr, fc, 0, -1, false, lr, mode, out, n);
+        n = addRay(fr, fc, 0, 1, false, lr, mode, out, n);
+        return n;
+    }
+
+    /**
+     * 沿 (dr, dc) 方向走射线，可按连通性回绕，回到起点即停止。
+     * SLIDE：收录直到第一个棋子（含）为止的格子；
+     * CANNON：收录炮架前的空格、炮架本身（走到己方棋子上的情形）以及炮架后的第一个棋子
+     */
+    private int addRay(int fr, int fc, int dr, int dc, boolean wrapRows, boolean wrapCols, int mode,
+                       int[] out, int n) {
+        int H = board.getRows();
+        int r = fr, c = fc;
+        boolean screened = false;
+        while (true) {
+            r += dr;
+            c += dc;
+            if (r < 0 || r >= H) {
+                if (!wrapRows) break;
+                r = (r + H) % H;
+            }
+            if (c < 0 || c >= Board.COLS) {
+                if (!wrapCols) break;
+                c = (c + Board.COLS) % Board.COLS;
+            }
+            if (r == fr && c == fc) break;
+            int sq = Board.square(r, c);
+            boolean occupied = board.heightAt(sq) > 0;
+            if (!screened) {
+                n = add(sq, out, n);
+                if (occupied) {
+                    if (mode == SLIDE) break;
+                    screened = true;
+                }
+            } else if (occupied) {
+                n = add(sq, out, n);
+                break;
+            }
+        }
+        return n;
+    }
+
+    private static void sort(int[] a, int n) {
+        for (int i = 1; i < n; i++) {
+            int v = a[i], j = i - 1;
+            while (j >= 0 && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.samera2022.chinese_chess.core.rules;
+
+import io.github.samera2022.chinese_chess.common.rules.RuleRegistry;
+
+import java.util.Map;
+
+/**
+ * 规则的不可变编译快照 - 由 {@link GameRulesConfig} 在每次规则变化后重新生成
+ *
+ * <p>布尔规则按 {@link RuleRegistry} 的声明序号压成一个位掩码，连同 max_stacking_count 一起保存。
+ * 走法校验、走法生成等热路径读取快照时只需一次 volatile 读，不再进入 GameRulesConfig 的同步块。</p>
+ */
+public final class RuleSet {
+    /** 影响走法生成的扩展规则；任一开启时走法生成不能只按标准规则的候选格处理 */
+    private static final long MOVE_GENERATION_EXTENSIONS = mask(
+            RuleRegistry.TOP_BOTTOM_CONNECTED,
+            RuleRegistry.LEFT_RIGHT_CONNECTED,
+            RuleRegistry.INTERNATIONAL_KING,
+            RuleRegistry.INTERNATIONAL_ADVISOR,
+            RuleRegistry.PAWN_CAN_RETREAT,
+            RuleRegistry.ALLOW_INSIDE_RETREAT,
+            RuleRegistry.ALLOW_FLYING_GENERAL,
+            RuleRegistry.NO_RIVER_LIMIT,
+            RuleRegistry.UNBLOCK_PIECE,
+            RuleRegistry.ALLOW_CAPTURE_OWN_PIECE,
+            RuleRegistry.ALLOW_PIECE_STACKING);
+
+    private final long bits;
+    private final int maxStackingCount;
+
+    private RuleSet(long bits, int maxStackingCount) {
+        this.bits = bits;
+        this.maxStackingCount = maxStackingCount;
+    }
+
+    /** 按 GameRulesConfig 的取值约定（Boolean 或可解析的字符串）编译规则表 */
+    static RuleSet compile(Map<String, Object> values) {
+        long bits = 0L;
+        for (RuleRegistry rule : RuleRegistry.values()) {
+            Object value = values.get(rule.registryName);
+            boolean enabled = value instanceof Boolean ? (Boolean) value
+                    : value instanceof String && Boolean.parseBoolean((String) value);
+            if (enabled) {
+                bits |= 1L << rule.ordinal();
+            }
+        }
+        return new RuleSet(bits, toInt(values.get(RuleRegistry.MAX_STACKING_COUNT.registryName)));
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return (int) Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long mask(RuleRegistry... rules) {
+        long m = 0L;
+        for (RuleRegistry r : rules) {
+            m |= 1L << r.ordinal();
+        }
+        return m;
+    }
+
+    public boolean has(RuleRegistry rule) {
+        return (bits & (1L << rule.ordinal())) != 0;
+    }
+
+    public int getMaxStackingCount() {
+        return maxStackingCount;
+    }
+
+    /** 堆叠规则开启且上限大于 1 时，走到己方棋子上视为堆叠 */
+    public boolean isStackingEnabled() {
+        return has(RuleRegistry.ALLOW_PIECE_STACKING) && maxStackingCount > 1;
+    }
+
+    /** 未开启任何影响走法生成的扩展规则 */
+    public boolean isStandardMoveGeneration() {
+        return (bits & MOVE_GENERATION_EXTENSIONS) == 0;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RuleSet)) return false;
+        RuleSet other = (RuleSet) o;
+        return bits == other.bits && maxStackingCount == other.maxStackingCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits) * 31 + maxStackingCount;
+    }
+}
@@ -40,6 +40,8 @@ public final class ServerConfig {
     private final int mctsSimulations;
     /** MCTS 时间限制毫秒，默认 5000 */
     private final long mctsTimeLimitMs;
+    /** MCTS 每轮一起提交推理的叶节点数，默认 8 */
+    private final int mctsLeafBatchSize;
 
     // ---- 构造器 ----
 
@@ -68,6 +70,7 @@ public final class ServerConfig {
         this.mctsExplorationConstant = getDouble(props, "server.mcts.exploration_constant", 1.414);
         this.mctsSimulations = getInt(props, "server.mcts.simulations", 800);
         this.mctsTimeLimitMs = getLong(props, "server.mcts.time_limit_ms", 5000);
+        this.mctsLeafBatchSize = getInt(props, "server.mcts.leaf_batch_size", 8);
     }
 
     // ---- 单例访问 ----
@@ -143,6 +146,10 @@ public final class ServerConfig {
         return mctsTimeLimitMs;
     }
 
+    public int getMctsLeafBatchSize() {
+        return mctsLeafBatchSize;
+    }
+
     // ---- 辅助方法 ----
 
     private int getInt(Properties props, String key, int defaultValue) {
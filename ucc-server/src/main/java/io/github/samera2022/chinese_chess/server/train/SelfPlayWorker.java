@@ -2,8 +2,10 @@ package io.github.samera2022.chinese_chess.server.train;
 
 import io.github.samera2022.chinese_chess.ai.MCTSAgent;
 import io.github.samera2022.chinese_chess.ai.TrainingDataCollector;
+import io.github.samera2022.chinese_chess.common.GameStatus;
 import io.github.samera2022.chinese_chess.common.model.BoardState;
 import io.github.samera2022.chinese_chess.common.model.Move;
+import io.github.samera2022.chinese_chess.common.model.PackedMove;
 import io.github.samera2022.chinese_chess.common.model.Piece;
 import io.github.samera2022.chinese_chess.common.spi.ReadonlyBoard;
 import io.github.samera2022.chinese_chess.common.spi.SimulationContext;
@@ -35,6 +37,8 @@ public class SelfPlayWorker implements Runnable {
     private final MCTSAgent mctsAgent;
     private final int mctsSimulations;
     private final long mctsTimeLimitMs;
+    /** 终局判断用的走法缓冲区，只关心着法数 */
+    private final int[] moveBuffer = new int[PackedMove.BUFFER_SIZE];
 
     public SelfPlayWorker(int workerId, GameRulesConfig rules, BatchingEngine batchingEngine) {
         this(workerId, rules, batchingEngine, ServerConfig.getInstance());
@@ -46,6 +50,7 @@ public class SelfPlayWorker implements Runnable {
         this.batchingEngine = batchingEngine;
         this.collector = new TrainingDataCollector();
         this.mctsAgent = new MCTSAgent();
+        this.mctsAgent.setLeafBatchSize(Math.max(1, config.getMctsLeafBatchSize()));
         this.mctsSimulations = config.getMctsSimulations();
         this.mctsTimeLimitMs = config.getMctsTimeLimitMs();
     }
@@ -68,8 +73,8 @@ public class SelfPlayWorker implements Runnable {
             // 集成 TranspositionTable 缓存，避免重复推理同一局面
             TranspositionTable tt = batchingEngine.getTranspositionTable();
             mctsAgent.setInferenceFunction((simCtx, ruleVecIgnored) -> {
-                BoardState state = ((Board) simCtx.getBoard()).toState();
-                long hash = state.toHash();
+                // Zobrist 键由棋盘增量维护，命中置换表时无需构造 BoardState
+                long hash = simCtx.getZobristKey();
 
                 // 1) 查置换表：若命中则直接返回缓存的 [value, policy_0, ..., policy_n]
                 Optional<TranspositionTable.TtEntry> cached = tt.get(hash);
@@ -83,6 +88,7 @@ public class SelfPlayWorker implements Runnable {
                 }
 
                 // 2) 未命中 → 提交推理，完成后将结果写入置换表
+                BoardState state = ((Board) simCtx.getBoard()).toState();
                 return batchingEngine.submitInference(state, ruleVector)
                         .thenApply(inferResult -> {
                             // inferResult[0] = value, inferResult[1..] = policy
@@ -94,10 +100,11 @@ public class SelfPlayWorker implements Runnable {
             });
 
             int moveCount = 0;
+            GameStatus repetition = GameStatus.RUNNING;
             List<StepSample> tempSamples = new ArrayList<>();
 
             while (moveCount < MAX_MOVES) {
-                if (ctx.generateLegalMoves().isEmpty()) {
+                if (ctx.generateLegalMoves(moveBuffer) == 0) {
                     break;
                 }
 
@@ -152,6 +159,12 @@ public class SelfPlayWorker implements Runnable {
                     break;
                 }
                 moveCount++;
+
+                // 重复局面（三次重复 / 长将）即时裁决，不再把推理浪费在来回走动的局面上
+                repetition = ctx.getRepetitionStatus();
+                if (repetition != GameStatus.RUNNING) {
+                    break;
+                }
             }
 
             // 对局结束后，根据终局结果回填所有样本的 value target
@@ -163,10 +176,19 @@ public class SelfPlayWorker implements Runnable {
             } else if (finalBoard.getBlackKing() == null) {
                 // 黑方将/帅被吃 → 红胜
                 finalValue = 1.0f;
+            } else if (repetition == GameStatus.RED_CHECKMATE) {
+                // 红方长将 → 黑胜
+                finalValue = -1.0f;
+            } else if (repetition == GameStatus.BLACK_CHECKMATE) {
+                // 黑方长将 → 红胜
+                finalValue = 1.0f;
+            } else if (repetition == GameStatus.DRAW) {
+                // 三次重复局面 → 平局
+                finalValue = 0.0f;
             } else if (moveCount >= MAX_MOVES) {
                 // 达到最大步数上限 → 平局
                 finalValue = 0.0f;
-            } else if (ctx.generateLegalMoves().isEmpty()) {
+            } else if (ctx.generateLegalMoves(moveBuffer) == 0) {
                 // 当前回合方无子可走 → 该方负
                 finalValue = ctx.isRedTurn() ? -1.0f : 1.0f;
             } else {
@@ -8,7 +8,7 @@ import java.util.Optional;
  * 基于 LRU 的全局置换表。
  * 利用 128GB 大内存，缓存已评估的局面。
  *
- * Key: BoardState 的 hash（zzHash 或 SHA-256 前 8 字节）
+ * Key: 局面的 Zobrist 键（{@code ReadonlyBoard#getZobristKey()}）
  * Value: (policy, value)
  */
 public class TranspositionTable {